@@ -0,0 +1,925 @@
+package com.distrimind.bcfips.asn1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.distrimind.bcfips.util.io.Streams;
+
+/**
+ * A parser for ASN.1 encodings held in a ByteBuffer, including a MappedByteBuffer, which also returns,
+ * where possible, parsers for the objects it encounters.
+ * <p>
+ * Unlike the {@link ASN1StreamParser} every object returned is backed by its own slice of the buffer, so
+ * objects can be read in any order and anything not read is skipped without being touched. OCTET STRING
+ * contents are not copied: {@link OctetStringParser#getOctetBuffer()} returns a read-only slice of the
+ * original buffer and {@link OctetStringParser#getOctetStream()} reads directly from it. Other primitives
+ * are loaded in the same way as by the stream parser. Indefinite-length encodings are supported, their
+ * extent being found by skipping over the nested encodings until the end-of-contents octets are reached.
+ * The extents of any indefinite-length encodings nested inside are recorded on the way, so the parsers
+ * for the inner objects do not walk the same octets again.
+ * </p>
+ * <p>
+ * A parser created over a FileChannel maps the channel a window at a time, moving the window to the
+ * start of the next top-level object when that object does not fit in what is mapped, so files larger
+ * than a single buffer can be parsed as long as each top-level object fits in one. A parser returned by
+ * {@link #fromFile(File)} for such a file keeps the file open until it is read to the end or closed.
+ * </p>
+ */
+public class ASN1BufferParser
+    implements Closeable
+{
+    private static final int MAX_WINDOW = Integer.MAX_VALUE;
+
+    private final int limit;
+    private final boolean indefinite;
+    private final byte[][] tmpBuffers;
+
+    // lengths of indefinite-length contents already found, keyed by offset of the contents from origin.
+    private final Map<Integer, Integer> extents;
+    private final int origin;
+
+    // only set for a parser reading a channel, in which case buf is the currently mapped window.
+    private final FileChannel channel;
+    private final long channelEnd;
+    private final int windowSize;
+    private final boolean ownsChannel;
+    private long windowStart;
+
+    private ByteBuffer buf;
+
+    /**
+     * Create a parser for the encodings between the buffer's current position and its limit.
+     *
+     * @param buffer the buffer containing the encodings - the buffer's position and limit are not changed.
+     */
+    public ASN1BufferParser(ByteBuffer buffer)
+    {
+        this(buffer, buffer.remaining());
+    }
+
+    /**
+     * Create a parser for the encodings between the buffer's current position and its limit.
+     *
+     * @param buffer the buffer containing the encodings - the buffer's position and limit are not changed.
+     * @param limit the maximum length allowed for any object found in the buffer.
+     */
+    public ASN1BufferParser(ByteBuffer buffer, int limit)
+    {
+        this(buffer.slice(), limit, false, null, 0);
+    }
+
+    /**
+     * Create a parser for the encodings between the channel's current position and its end, mapping the
+     * channel read only a window at a time. The channel must stay open until the parser has been read to
+     * the end, objects already returned remain valid after it is closed.
+     *
+     * @param channel the channel containing the encodings - the channel's position is not changed.
+     * @throws IOException if the channel cannot be mapped.
+     */
+    public ASN1BufferParser(FileChannel channel)
+        throws IOException
+    {
+        this(channel, MAX_WINDOW, false);
+    }
+
+    ASN1BufferParser(FileChannel channel, int windowSize, boolean ownsChannel)
+        throws IOException
+    {
+        long position = channel.position();
+
+        this.limit = (int)Math.min(channel.size() - position, Integer.MAX_VALUE);
+        this.indefinite = false;
+        this.tmpBuffers = new byte[11][];
+        this.extents = null;
+        this.origin = 0;
+        this.channel = channel;
+        this.channelEnd = channel.size();
+        this.windowSize = windowSize;
+        this.ownsChannel = ownsChannel;
+
+        mapWindow(position);
+    }
+
+    private ASN1BufferParser(ByteBuffer buf, int limit, boolean indefinite, Map<Integer, Integer> extents, int origin)
+    {
+        this.buf = buf;
+        this.limit = limit;
+        this.indefinite = indefinite;
+        this.tmpBuffers = new byte[11][];
+        this.extents = extents;
+        this.origin = origin;
+        this.channel = null;
+        this.channelEnd = 0;
+        this.windowSize = 0;
+        this.ownsChannel = false;
+    }
+
+    /**
+     * Create a parser over the contents of a file, which is mapped into memory read only. Files too large
+     * to be mapped as a single buffer are mapped a window at a time, the file being closed once the parser
+     * has been read to the end or {@link #close()} is called.
+     *
+     * @param file the file containing the encodings.
+     * @return a parser for the encodings in file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static ASN1BufferParser fromFile(File file)
+        throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+
+            if (size > MAX_WINDOW)
+            {
+                ASN1BufferParser parser = new ASN1BufferParser(channel, MAX_WINDOW, true);
+
+                raf = null;     // closed by the parser.
+
+                return parser;
+            }
+
+            // the mapping remains valid after the channel is closed.
+            return new ASN1BufferParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+        finally
+        {
+            if (raf != null)
+            {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Return the next object in the buffer.
+     *
+     * @return the next object, or null if the end of the buffer has been reached.
+     * @throws IOException if the encoding is invalid or truncated.
+     */
+    public ASN1Encodable readObject()
+        throws IOException
+    {
+        if (channel == null)
+        {
+            return readBufferedObject();
+        }
+
+        long objectStart = windowStart + buf.position();
+        if (objectStart == channelEnd)
+        {
+            close();
+            return null;
+        }
+
+        if (!buf.hasRemaining())
+        {
+            mapWindow(objectStart);
+        }
+
+        int start = buf.position();
+        try
+        {
+            return readBufferedObject();
+        }
+        catch (EOFException e)
+        {
+            if (windowStart + buf.limit() == channelEnd)
+            {
+                throw e;
+            }
+            if (start == 0)
+            {
+                throw new IOException("object at offset " + objectStart + " larger than mapped window of " + windowSize + " bytes");
+            }
+        }
+
+        // the object runs past the end of the window, start the next one with it.
+        mapWindow(objectStart);
+
+        return readObject();
+    }
+
+    /**
+     * Close the file opened by {@link #fromFile(File)} for a parser that maps it a window at a time. A channel
+     * passed in by the caller is left open, as is anything else the parser is reading from. Objects already
+     * returned remain valid.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    public void close()
+        throws IOException
+    {
+        if (ownsChannel)
+        {
+            channel.close();
+        }
+    }
+
+    private void mapWindow(long position)
+        throws IOException
+    {
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(channelEnd - position, windowSize));
+        windowStart = position;
+    }
+
+    private ASN1Encodable readBufferedObject()
+        throws IOException
+    {
+        if (!buf.hasRemaining())
+        {
+            return null;
+        }
+
+        BufferInputStream bIn = new BufferInputStream(buf);
+
+        int tag = bIn.read();
+        if (tag == 0)
+        {
+            throw new IOException("unexpected end-of-contents marker");
+        }
+
+        //
+        // calculate tag number
+        //
+        int tagNo = ASN1InputStream.readTagNumber(bIn, tag);
+
+        boolean isConstructed = (tag & BERTags.CONSTRUCTED) != 0;
+
+        //
+        // calculate length
+        //
+        int length = ASN1InputStream.readLength(bIn, limit);
+
+        if (length < 0) // indefinite-length method
+        {
+            if (!isConstructed)
+            {
+                throw new IOException("indefinite-length primitive encoding encountered");
+            }
+
+            ASN1BufferParser contents = sliceIndefinite();
+
+            if ((tag & BERTags.APPLICATION) != 0)
+            {
+                return new BERApplicationSpecificParser(tagNo, new ASN1StreamParser(new BufferInputStream(contents.buf), limit));
+            }
+
+            if ((tag & BERTags.TAGGED) != 0)
+            {
+                return new BufferTaggedObjectParser(true, tagNo, contents);
+            }
+
+            return readIndef(tagNo, contents);
+        }
+        else
+        {
+            int contentsStart = buf.position();
+            ByteBuffer contents = sliceDefinite(length);
+
+            if ((tag & BERTags.APPLICATION) != 0)
+            {
+                return new DLApplicationSpecific(isConstructed, tagNo, toByteArray(contents));
+            }
+
+            if ((tag & BERTags.TAGGED) != 0)
+            {
+                return new BufferTaggedObjectParser(isConstructed, tagNo, definiteParser(contents, contentsStart));
+            }
+
+            if (isConstructed)
+            {
+                // TODO There are other tags that may be constructed (e.g. BIT_STRING)
+                switch (tagNo)
+                {
+                    case BERTags.OCTET_STRING:
+                        //
+                        // yes, people actually do this...
+                        //
+                        return new ConstructedOctetStringParser(definiteParser(contents, contentsStart));
+                    case BERTags.SEQUENCE:
+                        return new BufferSequenceParser(definiteParser(contents, contentsStart));
+                    case BERTags.SET:
+                        return new BufferSetParser(definiteParser(contents, contentsStart));
+                    case BERTags.EXTERNAL:
+                        return new DERExternalParser(new ASN1StreamParser(new BufferInputStream(contents), limit));
+                    default:
+                        throw new IOException("unknown tag " + tagNo + " encountered");
+                }
+            }
+
+            // Some primitive encodings can be handled by parsers too...
+            switch (tagNo)
+            {
+                case BERTags.OCTET_STRING:
+                    return new OctetStringParser(contents);
+            }
+
+            try
+            {
+                return ASN1InputStream.createPrimitiveDERObject(tagNo,
+                    new DefiniteLengthInputStream(new BufferInputStream(contents), length), tmpBuffers);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new ASN1Exception("corrupted stream detected", e);
+            }
+        }
+    }
+
+    private ASN1Encodable readIndef(int tagValue, ASN1BufferParser contents)
+        throws IOException
+    {
+        // Note: INDEF => CONSTRUCTED
+
+        // TODO There are other tags that may be constructed (e.g. BIT_STRING)
+        switch (tagValue)
+        {
+            case BERTags.EXTERNAL:
+                return new DERExternalParser(new ASN1StreamParser(new BufferInputStream(contents.buf), limit));
+            case BERTags.OCTET_STRING:
+                return new ConstructedOctetStringParser(contents);
+            case BERTags.SEQUENCE:
+                return new BufferSequenceParser(contents);
+            case BERTags.SET:
+                return new BufferSetParser(contents);
+            default:
+                throw new ASN1Exception("unknown BER object encountered: 0x" + Integer.toHexString(tagValue));
+        }
+    }
+
+    private ASN1Encodable readImplicit(boolean constructed, int tag)
+        throws IOException
+    {
+        if (indefinite)
+        {
+            if (!constructed)
+            {
+                throw new IOException("indefinite-length primitive encoding encountered");
+            }
+
+            return readIndef(tag, this);
+        }
+
+        if (constructed)
+        {
+            switch (tag)
+            {
+                case BERTags.SET:
+                    return new BufferSetParser(this);
+                case BERTags.SEQUENCE:
+                    return new BufferSequenceParser(this);
+                case BERTags.OCTET_STRING:
+                    return new ConstructedOctetStringParser(this);
+            }
+        }
+        else
+        {
+            switch (tag)
+            {
+                case BERTags.SET:
+                    throw new ASN1Exception("sequences must use constructed encoding (see X.690 8.9.1/8.10.1)");
+                case BERTags.SEQUENCE:
+                    throw new ASN1Exception("sets must use constructed encoding (see X.690 8.11.1/8.12.1)");
+                case BERTags.OCTET_STRING:
+                    return new OctetStringParser(buf.slice());
+            }
+        }
+
+        throw new ASN1Exception("implicit tagging not implemented");
+    }
+
+    private ASN1Primitive readTaggedObject(boolean constructed, int tag)
+        throws IOException
+    {
+        if (!constructed)
+        {
+            // Note: !CONSTRUCTED => IMPLICIT
+            return new DERTaggedObject(false, tag, new DEROctetString(toByteArray(buf.slice())));
+        }
+
+        ASN1EncodableVector v = readVector();
+
+        if (indefinite)
+        {
+            return v.size() == 1
+                ?   new BERTaggedObject(true, tag, v.get(0))
+                :   new BERTaggedObject(false, tag, BERFactory.createSequence(v));
+        }
+
+        return v.size() == 1
+            ?   new DERTaggedObject(true, tag, v.get(0))
+            :   new DERTaggedObject(false, tag, DERFactory.createSequence(v));
+    }
+
+    ASN1EncodableVector readVector()
+        throws IOException
+    {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+
+        ASN1Encodable obj;
+        while ((obj = readObject()) != null)
+        {
+            if (obj instanceof InMemoryRepresentable)
+            {
+                v.add(((InMemoryRepresentable)obj).getLoadedObject());
+            }
+            else
+            {
+                v.add(obj.toASN1Primitive());
+            }
+        }
+
+        return v;
+    }
+
+    private ASN1BufferParser definiteParser(ByteBuffer contents, int contentsStart)
+    {
+        return new ASN1BufferParser(contents, limit, false, extents, origin + contentsStart);
+    }
+
+    private ASN1BufferParser duplicate()
+    {
+        return new ASN1BufferParser(buf.duplicate(), limit, indefinite, extents, origin);
+    }
+
+    private ByteBuffer sliceDefinite(int length)
+        throws IOException
+    {
+        if (length > buf.remaining())
+        {
+            throw new EOFException("DEF length " + length + " object truncated by " + (length - buf.remaining()));
+        }
+
+        ByteBuffer contents = buf.slice();
+        contents.limit(length);
+
+        buf.position(buf.position() + length);
+
+        return contents;
+    }
+
+    /**
+     * Return a parser for the contents of an indefinite-length encoding, leaving the buffer positioned
+     * after the end-of-contents octets. If the contents have not been walked over by an enclosing parser
+     * they are walked now, recording the extents of the indefinite-length encodings nested inside for
+     * the parsers of the inner objects.
+     */
+    private ASN1BufferParser sliceIndefinite()
+        throws IOException
+    {
+        int start = buf.position();
+        ByteBuffer contents = buf.slice();
+
+        Map<Integer, Integer> extents = this.extents;
+        int origin = this.origin;
+        Integer length = (extents == null) ? null : extents.get(origin + start);
+
+        if (length == null)
+        {
+            if (extents == null)
+            {
+                extents = new HashMap<Integer, Integer>();
+                origin = -start;
+            }
+
+            length = skipIndefinite(new BufferInputStream(buf), extents, origin);
+        }
+        else
+        {
+            buf.position(start + length + 2);
+        }
+
+        contents.limit(length);
+
+        return new ASN1BufferParser(contents, limit, true, extents, origin + start);
+    }
+
+    /**
+     * Skip to the end of the current indefinite-length contents, returning the length of the contents
+     * excluding the end-of-contents octets.
+     */
+    private int skipIndefinite(BufferInputStream bIn, Map<Integer, Integer> extents, int origin)
+        throws IOException
+    {
+        int start = buf.position();
+
+        for (;;)
+        {
+            int tag = bIn.read();
+            if (tag < 0)
+            {
+                throw new EOFException("EOF found in indefinite-length contents");
+            }
+
+            if (tag == 0)
+            {
+                int next = bIn.read();
+                if (next < 0)
+                {
+                    throw new EOFException("EOF found in end-of-contents marker");
+                }
+                if (next != 0)
+                {
+                    throw new IOException("malformed end-of-contents marker");
+                }
+
+                return buf.position() - start - 2;
+            }
+
+            ASN1InputStream.readTagNumber(bIn, tag);
+
+            int length = ASN1InputStream.readLength(bIn, limit);
+            if (length < 0)
+            {
+                if ((tag & BERTags.CONSTRUCTED) == 0)
+                {
+                    throw new IOException("indefinite-length primitive encoding encountered");
+                }
+
+                int contentsStart = buf.position();
+
+                extents.put(origin + contentsStart, skipIndefinite(bIn, extents, origin));
+            }
+            else
+            {
+                sliceDefinite(length);
+            }
+        }
+    }
+
+    private static byte[] toByteArray(ByteBuffer contents)
+    {
+        byte[] data = new byte[contents.remaining()];
+
+        contents.duplicate().get(data);
+
+        return data;
+    }
+
+    /**
+     * Parser for a primitive OCTET STRING, giving access to the contents without copying them.
+     */
+    public static final class OctetStringParser
+        implements ASN1OctetStringParser
+    {
+        private final ByteBuffer contents;
+
+        OctetStringParser(ByteBuffer contents)
+        {
+            this.contents = contents;
+        }
+
+        /**
+         * Return a read-only buffer over the octets, sharing the content of the buffer being parsed.
+         *
+         * @return a read-only ByteBuffer positioned at the start of the octets.
+         */
+        public ByteBuffer getOctetBuffer()
+        {
+            return contents.asReadOnlyBuffer();
+        }
+
+        /**
+         * Return a stream reading the octets directly from the buffer being parsed.
+         *
+         * @return a stream of the octets.
+         */
+        public InputStream getOctetStream()
+        {
+            return new BufferInputStream(contents.duplicate());
+        }
+
+        /**
+         * Return an in-memory, encodable, representation of the OCTET STRING - this copies the octets.
+         *
+         * @return a DEROctetString.
+         */
+        public ASN1Primitive getLoadedObject()
+        {
+            return new DEROctetString(toByteArray(contents));
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            return getLoadedObject();
+        }
+    }
+
+    private static class ConstructedOctetStringParser
+        implements ASN1OctetStringParser
+    {
+        private final ASN1BufferParser parser;
+
+        ConstructedOctetStringParser(ASN1BufferParser parser)
+        {
+            this.parser = parser;
+        }
+
+        public InputStream getOctetStream()
+        {
+            return new ConstructedStream(parser.duplicate());
+        }
+
+        public ASN1Primitive getLoadedObject()
+            throws IOException
+        {
+            return new BEROctetString(Streams.readAll(getOctetStream()));
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            try
+            {
+                return getLoadedObject();
+            }
+            catch (IOException e)
+            {
+                throw new ASN1ParsingException("IOException converting stream to byte array: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static class BufferSequenceParser
+        implements ASN1SequenceParser
+    {
+        private final ASN1BufferParser parser;
+
+        BufferSequenceParser(ASN1BufferParser parser)
+        {
+            this.parser = parser;
+        }
+
+        public ASN1Encodable readObject()
+            throws IOException
+        {
+            return parser.readObject();
+        }
+
+        public ASN1Primitive getLoadedObject()
+            throws IOException
+        {
+            ASN1BufferParser p = parser.duplicate();
+
+            if (parser.indefinite)
+            {
+                return new BERSequence(p.readVector());
+            }
+
+            return new DERSequence(p.readVector());
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            try
+            {
+                return getLoadedObject();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e.getMessage());
+            }
+        }
+    }
+
+    private static class BufferSetParser
+        implements ASN1SetParser
+    {
+        private final ASN1BufferParser parser;
+
+        BufferSetParser(ASN1BufferParser parser)
+        {
+            this.parser = parser;
+        }
+
+        public ASN1Encodable readObject()
+            throws IOException
+        {
+            return parser.readObject();
+        }
+
+        public ASN1Primitive getLoadedObject()
+            throws IOException
+        {
+            ASN1BufferParser p = parser.duplicate();
+
+            if (parser.indefinite)
+            {
+                return new BERSet(p.readVector());
+            }
+
+            return new DERSet(p.readVector(), false);
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            try
+            {
+                return getLoadedObject();
+            }
+            catch (IOException e)
+            {
+                throw new ASN1ParsingException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private static class BufferTaggedObjectParser
+        implements ASN1TaggedObjectParser
+    {
+        private final boolean constructed;
+        private final int tagNumber;
+        private final ASN1BufferParser parser;
+
+        BufferTaggedObjectParser(boolean constructed, int tagNumber, ASN1BufferParser parser)
+        {
+            this.constructed = constructed;
+            this.tagNumber = tagNumber;
+            this.parser = parser;
+        }
+
+        public int getTagNo()
+        {
+            return tagNumber;
+        }
+
+        public ASN1Encodable getObjectParser(int tag, boolean isExplicit)
+            throws IOException
+        {
+            ASN1BufferParser p = parser.duplicate();
+
+            if (isExplicit)
+            {
+                if (!constructed)
+                {
+                    throw new IOException("Explicit tags must be constructed (see X.690 8.14.2)");
+                }
+                return p.readObject();
+            }
+
+            return p.readImplicit(constructed, tag);
+        }
+
+        public ASN1Primitive getLoadedObject()
+            throws IOException
+        {
+            return parser.duplicate().readTaggedObject(constructed, tagNumber);
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            try
+            {
+                return this.getLoadedObject();
+            }
+            catch (IOException e)
+            {
+                throw new ASN1ParsingException(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stream of the concatenated octets of a constructed OCTET STRING.
+     */
+    private static class ConstructedStream
+        extends InputStream
+    {
+        private final ASN1BufferParser parser;
+
+        private InputStream current;
+        private boolean finished;
+
+        ConstructedStream(ASN1BufferParser parser)
+        {
+            this.parser = parser;
+        }
+
+        private boolean nextSegment()
+            throws IOException
+        {
+            ASN1Encodable next = parser.readObject();
+            if (next == null)
+            {
+                finished = true;
+                return false;
+            }
+
+            if (!(next instanceof ASN1OctetStringParser))
+            {
+                throw new IOException("unknown object encountered: " + next.getClass());
+            }
+
+            current = ((ASN1OctetStringParser)next).getOctetStream();
+
+            return true;
+        }
+
+        public int read()
+            throws IOException
+        {
+            while (!finished)
+            {
+                if (current != null)
+                {
+                    int b = current.read();
+                    if (b >= 0)
+                    {
+                        return b;
+                    }
+                }
+
+                nextSegment();
+            }
+
+            return -1;
+        }
+
+        public int read(byte[] b, int off, int len)
+            throws IOException
+        {
+            while (!finished)
+            {
+                if (current != null)
+                {
+                    int numRead = current.read(b, off, len);
+                    if (numRead >= 0)
+                    {
+                        return numRead;
+                    }
+                }
+
+                nextSegment();
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * InputStream reading from, and advancing the position of, a ByteBuffer.
+     */
+    private static class BufferInputStream
+        extends InputStream
+    {
+        private final ByteBuffer buf;
+
+        BufferInputStream(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        public int read()
+        {
+            if (!buf.hasRemaining())
+            {
+                return -1;
+            }
+
+            return buf.get() & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+
+            if (!buf.hasRemaining())
+            {
+                return -1;
+            }
+
+            len = Math.min(len, buf.remaining());
+            buf.get(b, off, len);
+
+            return len;
+        }
+
+        public long skip(long n)
+        {
+            int toSkip = (int)Math.max(0, Math.min(n, buf.remaining()));
+
+            buf.position(buf.position() + toSkip);
+
+            return toSkip;
+        }
+
+        public int available()
+        {
+            return buf.remaining();
+        }
+    }
+}
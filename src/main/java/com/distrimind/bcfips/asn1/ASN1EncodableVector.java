@@ -3,21 +3,46 @@
 /***************************************************************/
 package com.distrimind.bcfips.asn1;
 
-import java.util.Enumeration;
-import java.util.Vector;
-
 /**
  * Mutable class for building ASN.1 constructed objects such as SETs or SEQUENCEs.
+ * <p>
+ * The vector is array backed and not synchronized. SEQUENCEs and SETs built from a vector share its array where
+ * they can, the vector copying the array if it is added to after it has been shared.
+ * </p>
  */
 public class ASN1EncodableVector
 {
-    private final Vector v = new Vector();
+    static final ASN1Encodable[] EMPTY_ELEMENTS = new ASN1Encodable[0];
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private ASN1Encodable[] elements;
+    private int elementCount;
+    private boolean copyOnWrite;
 
     /**
      * Base constructor.
      */
     public ASN1EncodableVector()
     {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor specifying the initial capacity of the vector.
+     *
+     * @param initialCapacity the number of elements the vector can hold before it needs to grow.
+     */
+    public ASN1EncodableVector(int initialCapacity)
+    {
+        if (initialCapacity < 0)
+        {
+            throw new IllegalArgumentException("'initialCapacity' must not be negative");
+        }
+
+        this.elements = (initialCapacity == 0) ? EMPTY_ELEMENTS : new ASN1Encodable[initialCapacity];
+        this.elementCount = 0;
+        this.copyOnWrite = false;
     }
 
     /**
@@ -27,7 +52,14 @@ public class ASN1EncodableVector
      */
     public void add(ASN1Encodable obj)
     {
-        v.addElement(obj);
+        int minCapacity = elementCount + 1;
+        if ((minCapacity > elements.length) | copyOnWrite)
+        {
+            reallocate(minCapacity);
+        }
+
+        this.elements[elementCount] = obj;
+        this.elementCount = minCapacity;
     }
 
     /**
@@ -37,10 +69,20 @@ public class ASN1EncodableVector
      */
     public void addAll(ASN1EncodableVector other)
     {
-        for (Enumeration en = other.v.elements(); en.hasMoreElements();)
+        int otherElementCount = other.size();
+        if (otherElementCount < 1)
+        {
+            return;
+        }
+
+        int minCapacity = elementCount + otherElementCount;
+        if ((minCapacity > elements.length) | copyOnWrite)
         {
-            v.addElement(en.nextElement());
+            reallocate(minCapacity);
         }
+
+        System.arraycopy(other.elements, 0, elements, elementCount, otherElementCount);
+        this.elementCount = minCapacity;
     }
 
     /**
@@ -51,7 +93,12 @@ public class ASN1EncodableVector
      */
     public ASN1Encodable get(int i)
     {
-        return (ASN1Encodable)v.elementAt(i);
+        if (i >= elementCount)
+        {
+            throw new ArrayIndexOutOfBoundsException(i + " >= " + elementCount);
+        }
+
+        return elements[i];
     }
 
     /**
@@ -61,6 +108,55 @@ public class ASN1EncodableVector
      */
     public int size()
     {
-        return v.size();
+        return elementCount;
+    }
+
+    /**
+     * Return a copy of the elements in the vector, for use by an object which may reorder them.
+     */
+    ASN1Encodable[] copyElements()
+    {
+        if (0 == elementCount)
+        {
+            return EMPTY_ELEMENTS;
+        }
+
+        ASN1Encodable[] copy = new ASN1Encodable[elementCount];
+        System.arraycopy(elements, 0, copy, 0, elementCount);
+        return copy;
+    }
+
+    /**
+     * Return the elements in the vector, sharing the vector's array if it is exactly full. The caller must
+     * not modify the returned array.
+     */
+    ASN1Encodable[] takeElements()
+    {
+        if (0 == elementCount)
+        {
+            return EMPTY_ELEMENTS;
+        }
+
+        if (elements.length == elementCount)
+        {
+            this.copyOnWrite = true;
+            return elements;
+        }
+
+        ASN1Encodable[] copy = new ASN1Encodable[elementCount];
+        System.arraycopy(elements, 0, copy, 0, elementCount);
+        return copy;
+    }
+
+    private void reallocate(int minCapacity)
+    {
+        int oldCapacity = elements.length;
+        int newCapacity = Math.max(oldCapacity, minCapacity + (minCapacity >> 1));
+
+        ASN1Encodable[] copy = new ASN1Encodable[newCapacity];
+        System.arraycopy(elements, 0, copy, 0, elementCount);
+
+        this.elements = copy;
+        this.copyOnWrite = false;
     }
 }
@@ -23,6 +23,14 @@ public abstract class ASN1Object
     public byte[] getEncoded()
         throws IOException
     {
+        ASN1Primitive primitive = this.toASN1Primitive();
+
+        // a DER SEQUENCE or SET encodes its contents as DER regardless of the output stream.
+        if (primitive instanceof DERSequence || primitive instanceof DERSet)
+        {
+            return DEREncoder.encode(primitive);
+        }
+
         ByteArrayOutputStream bOut = new ByteArrayOutputStream();
         ASN1OutputStream      aOut = new ASN1OutputStream(bOut);
 
@@ -44,12 +52,7 @@ public abstract class ASN1Object
     {
         if (encoding.equals(ASN1Encoding.DER))
         {
-            ByteArrayOutputStream   bOut = new ByteArrayOutputStream();
-            DEROutputStream         dOut = new DEROutputStream(bOut);
-
-            dOut.writeObject(this);
-
-            return bOut.toByteArray();
+            return DEREncoder.encode(this.toASN1Primitive());
         }
         else if (encoding.equals(ASN1Encoding.DL))
         {
@@ -6,7 +6,6 @@ package com.distrimind.bcfips.asn1;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import com.distrimind.bcfips.util.Arrays;
 
@@ -63,7 +62,8 @@ public abstract class ASN1Sequence
     extends ASN1Primitive
     implements com.distrimind.bcfips.util.Iterable<ASN1Encodable>
 {
-    protected Vector seq = new Vector();
+    // immutable once set - may be shared with other SEQUENCEs and the ASN1EncodableVector it was built from.
+    ASN1Encodable[] elements;
 
     /**
      * Return an ASN1Sequence from the given object.
@@ -174,6 +174,7 @@ public abstract class ASN1Sequence
      */
     protected ASN1Sequence()
     {
+        this.elements = ASN1EncodableVector.EMPTY_ELEMENTS;
     }
 
     /**
@@ -183,7 +184,7 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         ASN1Encodable obj)
     {
-        seq.addElement(obj);
+        this.elements = new ASN1Encodable[]{ obj };
     }
 
     /**
@@ -193,10 +194,7 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         ASN1EncodableVector v)
     {
-        for (int i = 0; i != v.size(); i++)
-        {
-            seq.addElement(v.get(i));
-        }
+        this.elements = v.takeElements();
     }
 
     /**
@@ -206,10 +204,7 @@ public abstract class ASN1Sequence
     protected ASN1Sequence(
         ASN1Encodable[]   array)
     {
-        for (int i = 0; i != array.length; i++)
-        {
-            seq.addElement(array[i]);
-        }
+        this.elements = (array.length == 0) ? ASN1EncodableVector.EMPTY_ELEMENTS : array.clone();
     }
 
     public ASN1Encodable[] toArray()
@@ -226,7 +221,7 @@ public abstract class ASN1Sequence
 
     public Enumeration getObjects()
     {
-        return seq.elements();
+        return new ElementEnumeration(elements);
     }
 
     public ASN1SequenceParser parser()
@@ -280,7 +275,7 @@ public abstract class ASN1Sequence
     public ASN1Encodable getObjectAt(
         int index)
     {
-        return (ASN1Encodable)seq.elementAt(index);
+        return elements[index];
     }
 
     /**
@@ -290,20 +285,19 @@ public abstract class ASN1Sequence
      */
     public int size()
     {
-        return seq.size();
+        return elements.length;
     }
 
     public int hashCode()
     {
-        Enumeration             e = this.getObjects();
-        int                     hashCode = size();
+        int count = size();
+        int hashCode = count;
 
-        while (e.hasMoreElements())
+        for (int i = 0; i != count; i++)
         {
-            Object o = getNext(e);
             hashCode *= 17;
 
-            hashCode ^= o.hashCode();
+            hashCode ^= getObjectAt(i).hashCode();
         }
 
         return hashCode;
@@ -319,21 +313,16 @@ public abstract class ASN1Sequence
         
         ASN1Sequence   other = (ASN1Sequence)o;
 
-        if (this.size() != other.size())
+        int count = this.size();
+        if (count != other.size())
         {
             return false;
         }
 
-        Enumeration s1 = this.getObjects();
-        Enumeration s2 = other.getObjects();
-
-        while (s1.hasMoreElements())
+        for (int i = 0; i != count; i++)
         {
-            ASN1Encodable obj1 = getNext(s1);
-            ASN1Encodable obj2 = getNext(s2);
-
-            ASN1Primitive o1 = obj1.toASN1Primitive();
-            ASN1Primitive o2 = obj2.toASN1Primitive();
+            ASN1Primitive o1 = this.getObjectAt(i).toASN1Primitive();
+            ASN1Primitive o2 = other.getObjectAt(i).toASN1Primitive();
 
             if (o1 == o2 || o1.equals(o2))
             {
@@ -346,13 +335,6 @@ public abstract class ASN1Sequence
         return true;
     }
 
-    private ASN1Encodable getNext(Enumeration e)
-    {
-        ASN1Encodable encObj = (ASN1Encodable)e.nextElement();
-
-        return encObj;
-    }
-
     /**
      * Change current SEQUENCE object to be encoded as {@link DERSequence}.
      * This is part of Distinguished Encoding Rules form serialization.
@@ -361,7 +343,7 @@ public abstract class ASN1Sequence
     {
         ASN1Sequence derSeq = new DERSequence();
 
-        derSeq.seq = this.seq;
+        derSeq.elements = this.elements;
 
         return derSeq;
     }
@@ -374,7 +356,7 @@ public abstract class ASN1Sequence
     {
         ASN1Sequence dlSeq = new DLSequence();
 
-        dlSeq.seq = this.seq;
+        dlSeq.elements = this.elements;
 
         return dlSeq;
     }
@@ -389,7 +371,7 @@ public abstract class ASN1Sequence
 
     public String toString() 
     {
-        return seq.toString();
+        return ElementEnumeration.toString(elements);
     }
 
     public Iterator<ASN1Encodable> iterator()
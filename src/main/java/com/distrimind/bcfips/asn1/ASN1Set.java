@@ -6,7 +6,6 @@ package com.distrimind.bcfips.asn1;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import com.distrimind.bcfips.util.Arrays;
 
@@ -101,10 +100,11 @@ public abstract class ASN1Set
     extends ASN1Primitive
     implements com.distrimind.bcfips.util.Iterable<ASN1Encodable>
 {
-    private Vector set = new Vector();
+    // immutable once the SET has been constructed (and sorted if required).
+    private ASN1Encodable[] elements;
     private boolean isSorted = false;
 
-    protected Vector sortedElements;
+    ASN1Encodable[] sortedElements;
 
     /**
      * return an ASN1Set from the given object.
@@ -230,6 +230,7 @@ public abstract class ASN1Set
 
     protected ASN1Set()
     {
+        this.elements = ASN1EncodableVector.EMPTY_ELEMENTS;
     }
 
     /**
@@ -239,7 +240,7 @@ public abstract class ASN1Set
     protected ASN1Set(
         ASN1Encodable obj)
     {
-        set.addElement(obj);
+        this.elements = new ASN1Encodable[]{ obj };
     }
 
     /**
@@ -251,10 +252,8 @@ public abstract class ASN1Set
         ASN1EncodableVector v,
         boolean                  doSort)
     {
-        for (int i = 0; i != v.size(); i++)
-        {
-            set.addElement(v.get(i));
-        }
+        // sorting is done in place, so the vector's array can only be shared if we are not sorting.
+        this.elements = doSort ? v.copyElements() : v.takeElements();
 
         if (doSort)
         {
@@ -271,10 +270,7 @@ public abstract class ASN1Set
         ASN1Encodable[]   array,
         boolean doSort)
     {
-        for (int i = 0; i != array.length; i++)
-        {
-            set.addElement(array[i]);
-        }
+        this.elements = (array.length == 0) ? ASN1EncodableVector.EMPTY_ELEMENTS : array.clone();
 
         if (doSort)
         {
@@ -284,7 +280,7 @@ public abstract class ASN1Set
 
     public Enumeration getObjects()
     {
-        return set.elements();
+        return new ElementEnumeration(elements);
     }
 
     /**
@@ -296,7 +292,7 @@ public abstract class ASN1Set
     public ASN1Encodable getObjectAt(
         int index)
     {
-        return (ASN1Encodable)set.elementAt(index);
+        return elements[index];
     }
 
     /**
@@ -306,7 +302,7 @@ public abstract class ASN1Set
      */
     public int size()
     {
-        return set.size();
+        return elements.length;
     }
 
     public ASN1Encodable[] toArray()
@@ -365,15 +361,14 @@ public abstract class ASN1Set
 
     public int hashCode()
     {
-        Enumeration             e = this.getObjects();
-        int                     hashCode = size();
+        int count = size();
+        int hashCode = count;
 
-        while (e.hasMoreElements())
+        for (int i = 0; i != count; i++)
         {
-            Object o = getNext(e);
             hashCode *= 17;
 
-            hashCode ^= o.hashCode();
+            hashCode ^= getElement(i).hashCode();
         }
 
         return hashCode;
@@ -389,7 +384,7 @@ public abstract class ASN1Set
         {
             ASN1Set derSet = new DERSet();
 
-            derSet.set = this.set;
+            derSet.elements = this.elements;
 
             return derSet;
         }
@@ -399,23 +394,16 @@ public abstract class ASN1Set
 
             if (sortedElements == null)
             {
-                Vector v = new Vector();
-
-                for (int i = 0; i != set.size(); i++)
-                {
-                    v.addElement(set.elementAt(i));
-                }
-
-                derSet.set = v;
+                derSet.elements = elements.clone();
 
                 derSet.sort();
 
-                sortedElements = v;
+                sortedElements = derSet.elements;
             }
             else
             {
                 derSet.isSorted = true;
-                derSet.set = sortedElements;
+                derSet.elements = sortedElements;
             }
 
             return derSet;
@@ -430,7 +418,7 @@ public abstract class ASN1Set
     {
         ASN1Set derSet = new DLSet();
 
-        derSet.set = this.set;
+        derSet.elements = this.elements;
 
         return derSet;
     }
@@ -445,21 +433,16 @@ public abstract class ASN1Set
 
         ASN1Set   other = (ASN1Set)o;
 
-        if (this.size() != other.size())
+        int count = this.size();
+        if (count != other.size())
         {
             return false;
         }
 
-        Enumeration s1 = this.getObjects();
-        Enumeration s2 = other.getObjects();
-
-        while (s1.hasMoreElements())
+        for (int i = 0; i != count; i++)
         {
-            ASN1Encodable obj1 = getNext(s1);
-            ASN1Encodable obj2 = getNext(s2);
-
-            ASN1Primitive o1 = obj1.toASN1Primitive();
-            ASN1Primitive o2 = obj2.toASN1Primitive();
+            ASN1Primitive o1 = this.getElement(i).toASN1Primitive();
+            ASN1Primitive o2 = other.getElement(i).toASN1Primitive();
 
             if (o1 == o2 || o1.equals(o2))
             {
@@ -472,9 +455,9 @@ public abstract class ASN1Set
         return true;
     }
 
-    private ASN1Encodable getNext(Enumeration e)
+    private ASN1Encodable getElement(int index)
     {
-        ASN1Encodable encObj = (ASN1Encodable)e.nextElement();
+        ASN1Encodable encObj = getObjectAt(index);
 
         // unfortunately null was allowed as a substitute for DER null
         if (encObj == null)
@@ -531,22 +514,22 @@ public abstract class ASN1Set
         if (!isSorted)
         {
             isSorted = true;
-            if (set.size() > 1)
+            if (elements.length > 1)
             {
                 boolean    swapped = true;
-                int        lastSwap = set.size() - 1;
+                int        lastSwap = elements.length - 1;
 
                 while (swapped)
                 {
                     int    index = 0;
                     int    swapIndex = 0;
-                    byte[] a = getDEREncoded((ASN1Encodable)set.elementAt(0));
+                    byte[] a = getDEREncoded(elements[0]);
 
                     swapped = false;
 
                     while (index != lastSwap)
                     {
-                        byte[] b = getDEREncoded((ASN1Encodable)set.elementAt(index + 1));
+                        byte[] b = getDEREncoded(elements[index + 1]);
 
                         if (lessThanOrEqual(a, b))
                         {
@@ -554,10 +537,10 @@ public abstract class ASN1Set
                         }
                         else
                         {
-                            Object  o = set.elementAt(index);
+                            ASN1Encodable o = elements[index];
 
-                            set.setElementAt(set.elementAt(index + 1), index);
-                            set.setElementAt(o, index + 1);
+                            elements[index] = elements[index + 1];
+                            elements[index + 1] = o;
 
                             swapped = true;
                             swapIndex = index;
@@ -582,7 +565,7 @@ public abstract class ASN1Set
 
     public String toString() 
     {
-        return set.toString();
+        return ElementEnumeration.toString(elements);
     }
 
     public Iterator<ASN1Encodable> iterator()
@@ -0,0 +1,260 @@
+package com.distrimind.bcfips.asn1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Two pass DER encoder for complete ASN.1 structures.
+ * <p>
+ * The first pass converts each node to its DER form exactly once and calculates the lengths bottom up,
+ * recording the DER form and content length of every node in pre-order. The second pass then writes the
+ * encoding into a single byte array of the exact size required. Using the ordinary stream encoding a
+ * DL or BER structure is converted to DER afresh at every level of nesting, and each conversion
+ * recalculates the length of everything beneath it.
+ * </p>
+ */
+final class DEREncoder
+{
+    private static final int SEQUENCE = 1;
+    private static final int SET = 2;
+    private static final int EXPLICIT = 3;
+    private static final int IMPLICIT = 4;
+    private static final int LEAF = 5;
+
+    private ASN1Primitive[] nodes = new ASN1Primitive[64];
+    private int[] kinds = new int[64];
+    private int[] lengths = new int[64];   // content length for constructed nodes, full length for leaves.
+    private int[] children = new int[64];
+    private int count;
+
+    private DEREncoder()
+    {
+    }
+
+    /**
+     * Return the DER encoding of primitive.
+     *
+     * @param primitive the object to be encoded.
+     * @return a byte array containing exactly the DER encoding.
+     * @throws IOException if the object cannot be encoded.
+     */
+    static byte[] encode(ASN1Primitive primitive)
+        throws IOException
+    {
+        DEREncoder encoder = new DEREncoder();
+
+        int length = encoder.measure(primitive.toDERObject());
+
+        ArrayOutputStream aOut = new ArrayOutputStream(length);
+        DEROutputStream dOut = new DEROutputStream(aOut);
+
+        encoder.write(dOut, 0);
+
+        return aOut.getBuffer();
+    }
+
+    /**
+     * Record der and anything beneath it, returning the length of der's encoding.
+     */
+    private int measure(ASN1Primitive der)
+        throws IOException
+    {
+        int index = add(der);
+
+        if (der instanceof DERSequence || der instanceof DERSet)
+        {
+            int size;
+            int length = 0;
+
+            if (der instanceof DERSequence)
+            {
+                ASN1Sequence seq = (ASN1Sequence)der;
+
+                size = seq.size();
+                for (int i = 0; i != size; i++)
+                {
+                    length += measure(seq.getObjectAt(i).toASN1Primitive().toDERObject());
+                }
+                kinds[index] = SEQUENCE;
+            }
+            else
+            {
+                ASN1Set set = (ASN1Set)der;
+
+                size = set.size();
+                for (int i = 0; i != size; i++)
+                {
+                    length += measure(set.getObjectAt(i).toASN1Primitive().toDERObject());
+                }
+                kinds[index] = SET;
+            }
+
+            lengths[index] = length;
+            children[index] = size;
+
+            return 1 + StreamUtil.calculateBodyLength(length) + length;
+        }
+
+        if (der instanceof DERTaggedObject && !((DERTaggedObject)der).empty)
+        {
+            DERTaggedObject tagged = (DERTaggedObject)der;
+            ASN1Primitive inner = tagged.obj.toASN1Primitive().toDERObject();
+
+            if (tagged.explicit)
+            {
+                int length = measure(inner);
+
+                kinds[index] = EXPLICIT;
+                lengths[index] = length;
+
+                return StreamUtil.calculateTagLength(tagged.tagNo) + StreamUtil.calculateBodyLength(length) + length;
+            }
+
+            if (inner instanceof DERSequence || inner instanceof DERSet)
+            {
+                // header length already in calculation
+                int length = measure(inner) - 1;
+
+                kinds[index] = IMPLICIT;
+                lengths[index] = length;
+
+                return StreamUtil.calculateTagLength(tagged.tagNo) + length;
+            }
+        }
+
+        int length = der.encodedLength();
+
+        kinds[index] = LEAF;
+        lengths[index] = length;
+
+        return length;
+    }
+
+    /**
+     * Write the node at index and anything beneath it, returning the index of the next node.
+     */
+    private int write(DEROutputStream out, int index)
+        throws IOException
+    {
+        ASN1Primitive der = nodes[index];
+
+        switch (kinds[index])
+        {
+        case SEQUENCE:
+        case SET:
+        {
+            out.write((kinds[index] == SEQUENCE ? BERTags.SEQUENCE : BERTags.SET) | BERTags.CONSTRUCTED);
+            out.writeLength(lengths[index]);
+
+            int next = index + 1;
+            for (int i = 0; i != children[index]; i++)
+            {
+                next = write(out, next);
+            }
+            return next;
+        }
+        case EXPLICIT:
+            out.writeTag(BERTags.CONSTRUCTED | BERTags.TAGGED, ((ASN1TaggedObject)der).tagNo);
+            out.writeLength(lengths[index]);
+
+            return write(out, index + 1);
+        case IMPLICIT:
+        {
+            out.writeTag(BERTags.CONSTRUCTED | BERTags.TAGGED, ((ASN1TaggedObject)der).tagNo);
+
+            // the inner SEQUENCE or SET is written without its own tag.
+            int inner = index + 1;
+
+            out.writeLength(lengths[inner]);
+
+            int next = inner + 1;
+            for (int i = 0; i != children[inner]; i++)
+            {
+                next = write(out, next);
+            }
+            return next;
+        }
+        default:
+            der.encode(out);
+
+            return index + 1;
+        }
+    }
+
+    private int add(ASN1Primitive der)
+    {
+        if (count == nodes.length)
+        {
+            int newSize = count * 2;
+
+            ASN1Primitive[] newNodes = new ASN1Primitive[newSize];
+            System.arraycopy(nodes, 0, newNodes, 0, count);
+            nodes = newNodes;
+
+            int[] newKinds = new int[newSize];
+            System.arraycopy(kinds, 0, newKinds, 0, count);
+            kinds = newKinds;
+
+            int[] newLengths = new int[newSize];
+            System.arraycopy(lengths, 0, newLengths, 0, count);
+            lengths = newLengths;
+
+            int[] newChildren = new int[newSize];
+            System.arraycopy(children, 0, newChildren, 0, count);
+            children = newChildren;
+        }
+
+        nodes[count] = der;
+
+        return count++;
+    }
+
+    /**
+     * Output stream over a fixed size array which must be filled exactly.
+     */
+    private static class ArrayOutputStream
+        extends OutputStream
+    {
+        private final byte[] buf;
+        private int pos;
+
+        ArrayOutputStream(int length)
+        {
+            this.buf = new byte[length];
+        }
+
+        public void write(int b)
+            throws IOException
+        {
+            if (pos == buf.length)
+            {
+                throw new IOException("DER encoding exceeds calculated length");
+            }
+
+            buf[pos++] = (byte)b;
+        }
+
+        public void write(byte[] b, int off, int len)
+            throws IOException
+        {
+            if (len > buf.length - pos)
+            {
+                throw new IOException("DER encoding exceeds calculated length");
+            }
+
+            System.arraycopy(b, off, buf, pos, len);
+            pos += len;
+        }
+
+        byte[] getBuffer()
+            throws IOException
+        {
+            if (pos != buf.length)
+            {
+                throw new IOException("DER encoding shorter than calculated length");
+            }
+
+            return buf;
+        }
+    }
+}
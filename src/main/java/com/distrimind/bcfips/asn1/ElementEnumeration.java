@@ -0,0 +1,54 @@
+package com.distrimind.bcfips.asn1;
+
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/**
+ * Enumeration over the element array of a SEQUENCE or SET.
+ */
+class ElementEnumeration
+    implements Enumeration<ASN1Encodable>
+{
+    private final ASN1Encodable[] elements;
+
+    private int pos = 0;
+
+    ElementEnumeration(ASN1Encodable[] elements)
+    {
+        this.elements = elements;
+    }
+
+    public boolean hasMoreElements()
+    {
+        return pos < elements.length;
+    }
+
+    public ASN1Encodable nextElement()
+    {
+        if (pos < elements.length)
+        {
+            return elements[pos++];
+        }
+
+        throw new NoSuchElementException();
+    }
+
+    /**
+     * Return a string representation of elements, in the same format as a java.util.Vector.
+     */
+    static String toString(ASN1Encodable[] elements)
+    {
+        StringBuilder sb = new StringBuilder("[");
+
+        for (int i = 0; i != elements.length; i++)
+        {
+            if (i != 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(elements[i]);
+        }
+
+        return sb.append(']').toString();
+    }
+}
@@ -24,12 +24,14 @@ class LazyEncodedSequence
     private void parse()
     {
         Enumeration en = new LazyConstructionEnumeration(encoded);
+        ASN1EncodableVector v = new ASN1EncodableVector();
 
         while (en.hasMoreElements())
         {
-            seq.addElement(en.nextElement());
+            v.add((ASN1Encodable)en.nextElement());
         }
 
+        elements = v.takeElements();
         encoded = null;
     }
 
@@ -13,6 +13,13 @@ import com.distrimind.bcfips.crypto.AsymmetricPublicKey;
 
 /**
  * Class for Digital Signature Algorithm (DSA) public keys.
+ * <p>
+ * <b>Note</b>: Y values which have passed the FIPS 186-4 subgroup check are remembered by a SHA-256 fingerprint of P, Q and Y,
+ * so the check is not repeated when the same key is parsed again. The cache is configured with the system properties
+ * "com.distrimind.bcfips.dsa.public_key.cache_size" (default 4096, 0 disables the cache) and
+ * "com.distrimind.bcfips.dsa.public_key.cache_ttl_secs" (default 86400, 0 for no expiry). The cache is held in memory only,
+ * a Y value this process has not checked itself is always given the full check.
+ * </p>
  */
 public final class AsymmetricDSAPublicKey
     extends AsymmetricDSAKey
@@ -27,6 +34,46 @@ public final class AsymmetricDSAPublicKey
         this.y = KeyUtils.validated(params, y);
     }
 
+    private AsymmetricDSAPublicKey(Algorithm algorithm, DSADomainParameters params)
+    {
+        super(algorithm, params);
+    }
+
+    /**
+     * Create a key for a Y value which has already been validated against params.
+     */
+    private static AsymmetricDSAPublicKey createValidated(Algorithm algorithm, DSADomainParameters params, BigInteger y)
+    {
+        AsymmetricDSAPublicKey key = new AsymmetricDSAPublicKey(algorithm, params);
+
+        key.y = y;
+
+        return key;
+    }
+
+    /**
+     * Create public keys for a batch of Y values sharing the same domain parameters. The values are validated
+     * together, which is faster than constructing the keys one at a time when many of them need checking.
+     *
+     * @param algorithm the algorithm the keys are for.
+     * @param params the domain parameters shared by the keys.
+     * @param ys the Y values of the public keys.
+     * @return an array of public keys, one for each Y value in the same order.
+     * @throws IllegalArgumentException if any of the Y values fails validation.
+     */
+    public static AsymmetricDSAPublicKey[] createKeys(Algorithm algorithm, DSADomainParameters params, BigInteger... ys)
+    {
+        BigInteger[] validated = KeyUtils.validated(params, ys.clone());
+        AsymmetricDSAPublicKey[] keys = new AsymmetricDSAPublicKey[validated.length];
+
+        for (int i = 0; i != keys.length; i++)
+        {
+            keys[i] = createValidated(algorithm, params, validated[i]);
+        }
+
+        return keys;
+    }
+
     public AsymmetricDSAPublicKey(Algorithm algorithm, byte[] enc)
     {
         this(algorithm, SubjectPublicKeyInfo.getInstance(enc));
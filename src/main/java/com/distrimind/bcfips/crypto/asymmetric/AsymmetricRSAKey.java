@@ -25,6 +25,13 @@ import com.distrimind.bcfips.util.Properties;
  * a specific usage with a modulus. If the module is not running in approved mode this behavior can be overridden by
  * setting the system property "com.distrimind.bcfips.rsa.allow_multi_use" to "true".
  * </p>
+ * <p>
+ * <b>Note</b>: public moduli which have passed the SP 800-89 assurance checks are remembered by a SHA-256 fingerprint, so
+ * the checks are not repeated when the same modulus is parsed again. The cache is configured with the system properties
+ * "com.distrimind.bcfips.rsa.modulus.cache_size" (default 8192, 0 disables the cache) and "com.distrimind.bcfips.rsa.modulus.cache_ttl_secs"
+ * (default 86400, 0 for no expiry). The cache is held in memory only, a modulus this process has not checked itself is
+ * always given the full checks.
+ * </p>
  */
 public abstract class AsymmetricRSAKey
     implements AsymmetricKey
@@ -7,6 +7,7 @@ import com.distrimind.bcfips.asn1.cryptopro.ECGOST3410NamedCurves;
 import com.distrimind.bcfips.asn1.ua.DSTU4145NamedCurves;
 import com.distrimind.bcfips.asn1.x9.ECNamedCurveTable;
 import com.distrimind.bcfips.asn1.x9.X9ECParameters;
+import com.distrimind.bcfips.math.ec.FixedPointUtil;
 
 /**
  * General index for Elliptic Curve parameters.
@@ -78,6 +79,50 @@ public class ECDomainParametersIndex
         return null;
     }
 
+    /**
+     * Build the fixed point comb tables for the base points of the named curves, so the cost is paid up front
+     * rather than by the first key generation or signature on each curve. Once built the tables are shared,
+     * without locking, by every set of domain parameters for the curve.
+     *
+     * @param curveNames the names of the curves to prepare, if empty all the custom curves available are prepared.
+     * @throws IllegalArgumentException if a curve name is not recognised.
+     */
+    public static void precomputeNamedCurves(String[] curveNames)
+    {
+        if (curveNames.length == 0)
+        {
+            for (Enumeration<?> en = CustomNamedCurves.getNames(); en.hasMoreElements();)
+            {
+                try
+                {
+                    FixedPointUtil.precompute(CustomNamedCurves.getByName((String)en.nextElement()).getG());
+                }
+                catch (UnsupportedOperationException e)
+                {
+                    // curve family disabled - ignore.
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i != curveNames.length; i++)
+        {
+            X9ECParameters rv = CustomNamedCurves.getByName(curveNames[i]);
+
+            if (rv == null)
+            {
+                rv = ECNamedCurveTable.getByName(curveNames[i]);
+            }
+
+            if (rv == null)
+            {
+                throw new IllegalArgumentException("unknown curve name: " + curveNames[i]);
+            }
+
+            FixedPointUtil.precompute(rv.getG());
+        }
+    }
+
     public static ASN1ObjectIdentifier lookupOID(ECDomainParameters domainParameters)
     {
         for (Enumeration<String> en = (Enumeration<String>)ECNamedCurveTable.getNames(); en.hasMoreElements();)
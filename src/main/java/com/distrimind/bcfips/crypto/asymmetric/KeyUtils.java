@@ -3,6 +3,14 @@ package com.distrimind.bcfips.crypto.asymmetric;
 import java.math.BigInteger;
 import java.security.Permission;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.security.auth.Destroyable;
 
@@ -30,6 +38,16 @@ class KeyUtils
 {
     private static final BigInteger TWO = BigInteger.valueOf(2);
 
+    // moduli which have passed the SP 800-89 checks, see ValidatedKeyCache for the properties.
+    private static final ValidatedKeyCache modulusCache = ValidatedKeyCache.fromProperties("com.distrimind.bcfips.rsa.modulus", 8192, 24 * 60 * 60);
+
+    // DH and DSA public values which have passed the subgroup check in this process, fingerprinted together with P and Q.
+    private static final ValidatedKeyCache dhKeyCache = ValidatedKeyCache.fromProperties("com.distrimind.bcfips.dh.public_key", 4096, 24 * 60 * 60);
+    private static final ValidatedKeyCache dsaKeyCache = ValidatedKeyCache.fromProperties("com.distrimind.bcfips.dsa.public_key", 4096, 24 * 60 * 60);
+
+    // below this many exponentiations a batch is not worth spreading over the common pool.
+    private static final int PARALLEL_BATCH_THRESHOLD = 4;
+
     static BigInteger validated(DHDomainParameters dhParams, BigInteger y)
     {
         // TLS check
@@ -40,10 +58,18 @@ class KeyUtils
 
         if (dhParams.getQ() != null)
         {
+            ValidatedKeyCache.Fingerprint fingerprint = dhKeyCache.fingerprint(dhParams.getP(), dhParams.getQ(), y);
+            if (dhKeyCache.isValidated(fingerprint))
+            {
+                return y;
+            }
+
             // FSM_STATE:5.10, "SP 800-56A ASSURANCES", "The module is performing SP 800-56A Assurances self-test"
             // FSM_TRANS:5.17, "CONDITIONAL TEST", "SP 800-56A ASSURANCES CHECK", "Invoke SP 800-56A Assurances test"
             if (BigInteger.ONE.equals(y.modPow(dhParams.getQ(), dhParams.getP())))
             {
+                dhKeyCache.markValidated(fingerprint);
+
                 // FSM_TRANS:5.18, "SP 800-56A ASSURANCES CHECK", "CONDITIONAL TEST", "SP 800-56A Assurances test successful"
                 return y;
             }
@@ -60,11 +86,19 @@ class KeyUtils
     {
         if (dsaParams != null)
         {
+            ValidatedKeyCache.Fingerprint fingerprint = dsaKeyCache.fingerprint(dsaParams.getP(), dsaParams.getQ(), y);
+            if (dsaKeyCache.isValidated(fingerprint))
+            {
+                return y;
+            }
+
             // FSM_STATE:5.9, "FIPS 186-3/SP 800-89 ASSURANCES", "The module is performing FIPS 186-3/SP 800-89 Assurances self-test"
             // FSM_TRANS:5.14, "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "Invoke FIPS 186-3/SP 800-89 Assurances test"
             if (TWO.compareTo(y) <= 0 && dsaParams.getP().subtract(TWO).compareTo(y) >= 0
                 && BigInteger.ONE.equals(y.modPow(dsaParams.getQ(), dsaParams.getP())))
             {
+                dsaKeyCache.markValidated(fingerprint);
+
                  // FSM_TRANS:5.15, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test successful"
                 return y;
             }
@@ -77,6 +111,168 @@ class KeyUtils
         }
     }
 
+    /**
+     * Validate a batch of Y values in the same DH domain. The range checks and the cache lookups are done first, and
+     * the subgroup checks still required are spread across the common pool.
+     *
+     * @param dhParams the domain parameters the Y values belong to.
+     * @param ys the Y values to validate.
+     * @return ys, if all the values are valid.
+     * @throws IllegalArgumentException if any of the values is invalid.
+     */
+    static BigInteger[] validated(DHDomainParameters dhParams, BigInteger[] ys)
+    {
+        BigInteger upper = dhParams.getP().subtract(TWO);
+
+        for (int i = 0; i != ys.length; i++)
+        {
+            // TLS check
+            if (ys[i].compareTo(TWO) < 0 || ys[i].compareTo(upper) > 0)
+            {
+                throw new IllegalArgumentException("Y value is out of range");
+            }
+        }
+
+        if (dhParams.getQ() != null)
+        {
+            // FSM_STATE:5.10, "SP 800-56A ASSURANCES", "The module is performing SP 800-56A Assurances self-test"
+            // FSM_TRANS:5.17, "CONDITIONAL TEST", "SP 800-56A ASSURANCES CHECK", "Invoke SP 800-56A Assurances test"
+            if (!validateBatch(dhKeyCache, dhParams.getP(), dhParams.getQ(), ys))
+            {
+                // FSM_TRANS:5.19, "SP 800-56A ASSURANCES CHECK", "CONDITIONAL TEST", "SP 800-56A Assurances test failed"
+                throw new IllegalArgumentException("Y value does not appear to be in correct group");
+            }
+            // FSM_TRANS:5.18, "SP 800-56A ASSURANCES CHECK", "CONDITIONAL TEST", "SP 800-56A Assurances test successful"
+        }
+
+        return ys;
+    }
+
+    /**
+     * Validate a batch of Y values in the same DSA domain. The range checks and the cache lookups are done first, and
+     * the subgroup checks still required are spread across the common pool.
+     *
+     * @param dsaParams the domain parameters the Y values belong to.
+     * @param ys the Y values to validate.
+     * @return ys, if all the values are valid.
+     * @throws IllegalArgumentException if any of the values is invalid.
+     */
+    static BigInteger[] validated(DSADomainParameters dsaParams, BigInteger[] ys)
+    {
+        if (dsaParams != null)
+        {
+            BigInteger upper = dsaParams.getP().subtract(TWO);
+
+            // FSM_STATE:5.9, "FIPS 186-3/SP 800-89 ASSURANCES", "The module is performing FIPS 186-3/SP 800-89 Assurances self-test"
+            // FSM_TRANS:5.14, "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "Invoke FIPS 186-3/SP 800-89 Assurances test"
+            for (int i = 0; i != ys.length; i++)
+            {
+                if (TWO.compareTo(ys[i]) > 0 || upper.compareTo(ys[i]) < 0)
+                {
+                    // FSM_TRANS:5.16, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test failed"
+                    throw new IllegalArgumentException("Y value does not appear to be in correct group");
+                }
+            }
+
+            if (!validateBatch(dsaKeyCache, dsaParams.getP(), dsaParams.getQ(), ys))
+            {
+                // FSM_TRANS:5.16, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test failed"
+                throw new IllegalArgumentException("Y value does not appear to be in correct group");
+            }
+            // FSM_TRANS:5.15, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test successful"
+        }
+
+        return ys;
+    }
+
+    /**
+     * Check y^q mod p is one for every value in ys, skipping values already in the cache and values repeated
+     * in the batch. Values which pass are added to the cache.
+     */
+    private static boolean validateBatch(ValidatedKeyCache cache, final BigInteger p, final BigInteger q, BigInteger[] ys)
+    {
+        final List<BigInteger> pending = new ArrayList<BigInteger>();
+        Map<BigInteger, ValidatedKeyCache.Fingerprint> fingerprints = new HashMap<BigInteger, ValidatedKeyCache.Fingerprint>();
+
+        for (int i = 0; i != ys.length; i++)
+        {
+            if (!fingerprints.containsKey(ys[i]))
+            {
+                ValidatedKeyCache.Fingerprint fingerprint = cache.fingerprint(p, q, ys[i]);
+
+                fingerprints.put(ys[i], fingerprint);
+                if (!cache.isValidated(fingerprint))
+                {
+                    pending.add(ys[i]);
+                }
+            }
+        }
+
+        int workers = Math.min(ForkJoinPool.getCommonPoolParallelism(), pending.size() / PARALLEL_BATCH_THRESHOLD);
+        if (workers <= 1)
+        {
+            for (int i = 0; i != pending.size(); i++)
+            {
+                if (!BigInteger.ONE.equals(pending.get(i).modPow(q, p)))
+                {
+                    return false;
+                }
+            }
+        }
+        else
+        {
+            List<Callable<Boolean>> checks = new ArrayList<Callable<Boolean>>(workers);
+            for (int w = 0; w != workers; w++)
+            {
+                final int start = w;
+                final int step = workers;
+
+                checks.add(new Callable<Boolean>()
+                {
+                    public Boolean call()
+                    {
+                        for (int i = start; i < pending.size(); i += step)
+                        {
+                            if (!BigInteger.ONE.equals(pending.get(i).modPow(q, p)))
+                            {
+                                return Boolean.FALSE;
+                            }
+                        }
+
+                        return Boolean.TRUE;
+                    }
+                });
+            }
+
+            try
+            {
+                for (Future<Boolean> check : ForkJoinPool.commonPool().invokeAll(checks))
+                {
+                    if (!check.get().booleanValue())
+                    {
+                        return false;
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while validating public keys");
+            }
+            catch (ExecutionException e)
+            {
+                throw new IllegalStateException("unable to validate public keys: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        for (int i = 0; i != pending.size(); i++)
+        {
+            cache.markValidated(fingerprints.get(pending.get(i)));
+        }
+
+        return true;
+    }
+
     static BigInteger validated(BigInteger modulus, BigInteger publicExponent)
     {
         // FSM_STATE:5.9, "FIPS 186-3/SP 800-89 ASSURANCES", "The module is performing FIPS 186-3/SP 800-89 Assurances self-test"
@@ -94,7 +290,14 @@ class KeyUtils
     {
         // if there is already a marker for this modulus it has already been validated, or we've already loaded it with a private key.
         // skip the tests
-        if (!AsymmetricRSAKey.isAlreadySeen(modulus))
+        if (AsymmetricRSAKey.isAlreadySeen(modulus))
+        {
+            return modulus;
+        }
+
+        // the same goes for a modulus which has been validated before, but arrives as a different object.
+        ValidatedKeyCache.Fingerprint fingerprint = modulusCache.fingerprint(modulus);
+        if (!modulusCache.isValidated(fingerprint))
         {
             if ((modulus.intValue() & 1) == 0)
             {
@@ -135,6 +338,8 @@ class KeyUtils
                 // FSM_TRANS:5.16, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test failed"
                 throw new IllegalArgumentException("RSA modulus is a power of a prime");
             }
+
+            modulusCache.markValidated(fingerprint);
         }
         // FSM_TRANS:5.15, "FIPS 186-3/SP 800-89 ASSURANCES CHECK", "CONDITIONAL TEST", "FIPS 186-3/SP 800-89 Assurances test successful"
 
@@ -0,0 +1,253 @@
+package com.distrimind.bcfips.crypto.asymmetric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.distrimind.bcfips.crypto.UpdateOutputStream;
+import com.distrimind.bcfips.crypto.fips.FipsOutputDigestCalculator;
+import com.distrimind.bcfips.crypto.fips.FipsSHS;
+import com.distrimind.bcfips.util.Arrays;
+import com.distrimind.bcfips.util.Pack;
+import com.distrimind.bcfips.util.Properties;
+
+/**
+ * Bounded cache of the public values which have already passed their assurance checks.
+ * <p>
+ * Values are recorded by a SHA-256 fingerprint so that a value which is parsed again, and so arrives as a
+ * new object, is still found. Lookups do not lock. When the cache grows past its capacity the expired entries
+ * and then the least recently used entries are removed, and an entry is also dropped once it is older than the
+ * time to live, so the checks are repeated for it the next time the value is seen.
+ * </p>
+ * <p>
+ * Entries are only ever added for values this process has validated itself, nothing is loaded from or saved to
+ * external storage, so a value which has not been checked by this process always gets the full checks.
+ * </p>
+ */
+final class ValidatedKeyCache
+{
+    private final Map<Fingerprint, Entry> entries = new ConcurrentHashMap<Fingerprint, Entry>();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    private final int capacity;
+    private final long ttlMillis;
+
+    /**
+     * Create a cache configured from the properties "prefix.cache_size" and "prefix.cache_ttl_secs". A cache
+     * size of 0 disables the cache, and a time to live of 0 means entries only leave the cache through eviction.
+     *
+     * @param prefix the property name prefix.
+     * @param defaultCapacity the number of entries to hold if no size is set.
+     * @param defaultTtlSecs the time to live, in seconds, if none is set.
+     * @return a new cache.
+     */
+    static ValidatedKeyCache fromProperties(String prefix, int defaultCapacity, long defaultTtlSecs)
+    {
+        return new ValidatedKeyCache(
+            (int)getLongProperty(prefix + ".cache_size", defaultCapacity),
+            getLongProperty(prefix + ".cache_ttl_secs", defaultTtlSecs) * 1000);
+    }
+
+    ValidatedKeyCache(int capacity, long ttlMillis)
+    {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Return a fingerprint for the passed in values - each value is length prefixed before it is digested.
+     *
+     * @param values the values making up the public key.
+     * @return the fingerprint of the values, null if the cache is disabled.
+     */
+    Fingerprint fingerprint(BigInteger... values)
+    {
+        if (capacity <= 0)
+        {
+            return null;
+        }
+
+        FipsOutputDigestCalculator<FipsSHS.Parameters> calculator = new FipsSHS.OperatorFactory<FipsSHS.Parameters>().createOutputDigestCalculator(FipsSHS.SHA256);
+        UpdateOutputStream dOut = calculator.getDigestStream();
+
+        for (int i = 0; i != values.length; i++)
+        {
+            byte[] encoding = values[i].toByteArray();
+
+            dOut.update(Pack.intToBigEndian(encoding.length));
+            dOut.update(encoding);
+        }
+
+        return new Fingerprint(calculator.getDigest());
+    }
+
+    /**
+     * Return true if the value with the passed in fingerprint has already been validated.
+     *
+     * @param fingerprint the fingerprint of the value, may be null.
+     * @return true if the value is known to be valid, false otherwise.
+     */
+    boolean isValidated(Fingerprint fingerprint)
+    {
+        if (fingerprint == null)
+        {
+            return false;
+        }
+
+        Entry entry = entries.get(fingerprint);
+        if (entry == null)
+        {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (entry.isExpired(now, ttlMillis))
+        {
+            entries.remove(fingerprint, entry);
+            return false;
+        }
+
+        entry.lastAccess = now;
+
+        return true;
+    }
+
+    /**
+     * Record that the value with the passed in fingerprint has passed its assurance checks.
+     *
+     * @param fingerprint the fingerprint of the value, may be null.
+     */
+    void markValidated(Fingerprint fingerprint)
+    {
+        if (fingerprint == null)
+        {
+            return;
+        }
+
+        if (entries.put(fingerprint, new Entry(System.currentTimeMillis())) == null && entries.size() > capacity)
+        {
+            evict();
+        }
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    private void evict()
+    {
+        if (!evicting.compareAndSet(false, true))
+        {
+            return;    // another thread is already evicting.
+        }
+
+        try
+        {
+            long now = System.currentTimeMillis();
+            List<Map.Entry<Fingerprint, Entry>> live = new ArrayList<Map.Entry<Fingerprint, Entry>>(entries.size());
+
+            for (Iterator<Map.Entry<Fingerprint, Entry>> it = entries.entrySet().iterator(); it.hasNext();)
+            {
+                Map.Entry<Fingerprint, Entry> e = it.next();
+
+                if (e.getValue().isExpired(now, ttlMillis))
+                {
+                    it.remove();
+                }
+                else
+                {
+                    live.add(e);
+                }
+            }
+
+            // evict down to 7/8 of the capacity so the sort is paid for once every capacity / 8 additions.
+            int target = capacity - capacity / 8;
+            if (live.size() > target)
+            {
+                Collections.sort(live, new Comparator<Map.Entry<Fingerprint, Entry>>()
+                {
+                    public int compare(Map.Entry<Fingerprint, Entry> a, Map.Entry<Fingerprint, Entry> b)
+                    {
+                        long aAccess = a.getValue().lastAccess;
+                        long bAccess = b.getValue().lastAccess;
+
+                        return aAccess < bAccess ? -1 : (aAccess == bAccess ? 0 : 1);
+                    }
+                });
+
+                for (int i = 0, count = live.size() - target; i != count; i++)
+                {
+                    entries.remove(live.get(i).getKey());
+                }
+            }
+        }
+        finally
+        {
+            evicting.set(false);
+        }
+    }
+
+    private static long getLongProperty(String name, long defaultValue)
+    {
+        String value = Properties.getPropertyValue(name);
+
+        if (value != null)
+        {
+            try
+            {
+                return Math.max(0, Long.parseLong(value));
+            }
+            catch (Exception e)
+            {
+                // fall through to the default.
+            }
+        }
+
+        return defaultValue;
+    }
+
+    static final class Fingerprint
+    {
+        private final byte[] value;
+        private final int hashCode;
+
+        Fingerprint(byte[] value)
+        {
+            this.value = value;
+            this.hashCode = Pack.bigEndianToInt(value, 0);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof Fingerprint && Arrays.areEqual(value, ((Fingerprint)o).value);
+        }
+    }
+
+    private static final class Entry
+    {
+        private final long created;
+        private volatile long lastAccess;
+
+        Entry(long created)
+        {
+            this.created = created;
+            this.lastAccess = created;
+        }
+
+        boolean isExpired(long now, long ttlMillis)
+        {
+            return ttlMillis > 0 && now - created >= ttlMillis;
+        }
+    }
+}
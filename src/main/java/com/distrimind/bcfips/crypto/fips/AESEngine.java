@@ -3,6 +3,7 @@ package com.distrimind.bcfips.crypto.fips;
 import com.distrimind.bcfips.crypto.internal.BlockCipher;
 import com.distrimind.bcfips.crypto.internal.CipherParameters;
 import com.distrimind.bcfips.crypto.internal.DataLengthException;
+import com.distrimind.bcfips.crypto.internal.MultiBlockCipher;
 import com.distrimind.bcfips.crypto.internal.OutputLengthException;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameter;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameterImpl;
@@ -30,10 +31,12 @@ import com.distrimind.bcfips.util.Pack;
  * The slowest version uses no static tables at all and computes the values in each round.
  * <p>
  * This file contains the middle performance version with 2Kbytes of static tables for round precomputation.
- *
+ * <p>
+ * For bulk encryption, such as generating CTR key stream, processBlocks() runs four blocks through the
+ * rounds together so the table lookups for independent blocks can overlap.
  */
 class AESEngine
-    implements BlockCipher
+    implements MultiBlockCipher
 {
     private static final KeyParameter ZERO_KEY = new KeyParameterImpl(new byte[16]);
 
@@ -502,6 +505,60 @@ private static final int[] Tinv0 =
         return BLOCK_SIZE;
     }
 
+    public int processBlocks(
+        byte[] in,
+        int inOff,
+        int blockCount,
+        byte[] out,
+        int outOff)
+    {
+        if (WorkingKey == null)
+        {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+
+        if (blockCount < 0 || (inOff + blockCount * BLOCK_SIZE) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + blockCount * BLOCK_SIZE) > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int count = blockCount;
+        if (forEncryption)
+        {
+            while (count >= 4)
+            {
+                encryptBlocks4(in, inOff, WorkingKey, out, outOff);
+                inOff += 4 * BLOCK_SIZE;
+                outOff += 4 * BLOCK_SIZE;
+                count -= 4;
+            }
+            while (count > 0)
+            {
+                encryptBlock(in, inOff, WorkingKey, out, outOff);
+                inOff += BLOCK_SIZE;
+                outOff += BLOCK_SIZE;
+                --count;
+            }
+        }
+        else
+        {
+            while (count > 0)
+            {
+                decryptBlock(in, inOff, WorkingKey, out, outOff);
+                inOff += BLOCK_SIZE;
+                outOff += BLOCK_SIZE;
+                --count;
+            }
+        }
+
+        return blockCount * BLOCK_SIZE;
+    }
+
     public void reset()
     {
     }
@@ -588,6 +645,108 @@ private static final int[] Tinv0 =
             out, outOff);
     }
 
+    private void encryptBlocks4(byte[] input, int inOff, int[][] KW, byte[] out, int outOff)
+    {
+        int[] kw = KW[0];
+        int a0 = Pack.littleEndianToInt(input, inOff) ^ kw[0];
+        int a1 = Pack.littleEndianToInt(input, inOff + 4) ^ kw[1];
+        int a2 = Pack.littleEndianToInt(input, inOff + 8) ^ kw[2];
+        int a3 = Pack.littleEndianToInt(input, inOff + 12) ^ kw[3];
+        int b0 = Pack.littleEndianToInt(input, inOff + 16) ^ kw[0];
+        int b1 = Pack.littleEndianToInt(input, inOff + 20) ^ kw[1];
+        int b2 = Pack.littleEndianToInt(input, inOff + 24) ^ kw[2];
+        int b3 = Pack.littleEndianToInt(input, inOff + 28) ^ kw[3];
+        int c0 = Pack.littleEndianToInt(input, inOff + 32) ^ kw[0];
+        int c1 = Pack.littleEndianToInt(input, inOff + 36) ^ kw[1];
+        int c2 = Pack.littleEndianToInt(input, inOff + 40) ^ kw[2];
+        int c3 = Pack.littleEndianToInt(input, inOff + 44) ^ kw[3];
+        int d0 = Pack.littleEndianToInt(input, inOff + 48) ^ kw[0];
+        int d1 = Pack.littleEndianToInt(input, inOff + 52) ^ kw[1];
+        int d2 = Pack.littleEndianToInt(input, inOff + 56) ^ kw[2];
+        int d3 = Pack.littleEndianToInt(input, inOff + 60) ^ kw[3];
+
+        int ar0, ar1, ar2, ar3;
+        int br0, br1, br2, br3;
+        int cr0, cr1, cr2, cr3;
+        int dr0, dr1, dr2, dr3;
+
+        int r = 1;
+        while (r < ROUNDS - 1)
+        {
+            kw = KW[r++];
+            ar0 = T0[a0&255] ^ shift(T0[(a1>>8)&255], 24) ^ shift(T0[(a2>>16)&255], 16) ^ shift(T0[(a3>>24)&255], 8) ^ kw[0];
+            ar1 = T0[a1&255] ^ shift(T0[(a2>>8)&255], 24) ^ shift(T0[(a3>>16)&255], 16) ^ shift(T0[(a0>>24)&255], 8) ^ kw[1];
+            ar2 = T0[a2&255] ^ shift(T0[(a3>>8)&255], 24) ^ shift(T0[(a0>>16)&255], 16) ^ shift(T0[(a1>>24)&255], 8) ^ kw[2];
+            ar3 = T0[a3&255] ^ shift(T0[(a0>>8)&255], 24) ^ shift(T0[(a1>>16)&255], 16) ^ shift(T0[(a2>>24)&255], 8) ^ kw[3];
+            br0 = T0[b0&255] ^ shift(T0[(b1>>8)&255], 24) ^ shift(T0[(b2>>16)&255], 16) ^ shift(T0[(b3>>24)&255], 8) ^ kw[0];
+            br1 = T0[b1&255] ^ shift(T0[(b2>>8)&255], 24) ^ shift(T0[(b3>>16)&255], 16) ^ shift(T0[(b0>>24)&255], 8) ^ kw[1];
+            br2 = T0[b2&255] ^ shift(T0[(b3>>8)&255], 24) ^ shift(T0[(b0>>16)&255], 16) ^ shift(T0[(b1>>24)&255], 8) ^ kw[2];
+            br3 = T0[b3&255] ^ shift(T0[(b0>>8)&255], 24) ^ shift(T0[(b1>>16)&255], 16) ^ shift(T0[(b2>>24)&255], 8) ^ kw[3];
+            cr0 = T0[c0&255] ^ shift(T0[(c1>>8)&255], 24) ^ shift(T0[(c2>>16)&255], 16) ^ shift(T0[(c3>>24)&255], 8) ^ kw[0];
+            cr1 = T0[c1&255] ^ shift(T0[(c2>>8)&255], 24) ^ shift(T0[(c3>>16)&255], 16) ^ shift(T0[(c0>>24)&255], 8) ^ kw[1];
+            cr2 = T0[c2&255] ^ shift(T0[(c3>>8)&255], 24) ^ shift(T0[(c0>>16)&255], 16) ^ shift(T0[(c1>>24)&255], 8) ^ kw[2];
+            cr3 = T0[c3&255] ^ shift(T0[(c0>>8)&255], 24) ^ shift(T0[(c1>>16)&255], 16) ^ shift(T0[(c2>>24)&255], 8) ^ kw[3];
+            dr0 = T0[d0&255] ^ shift(T0[(d1>>8)&255], 24) ^ shift(T0[(d2>>16)&255], 16) ^ shift(T0[(d3>>24)&255], 8) ^ kw[0];
+            dr1 = T0[d1&255] ^ shift(T0[(d2>>8)&255], 24) ^ shift(T0[(d3>>16)&255], 16) ^ shift(T0[(d0>>24)&255], 8) ^ kw[1];
+            dr2 = T0[d2&255] ^ shift(T0[(d3>>8)&255], 24) ^ shift(T0[(d0>>16)&255], 16) ^ shift(T0[(d1>>24)&255], 8) ^ kw[2];
+            dr3 = T0[d3&255] ^ shift(T0[(d0>>8)&255], 24) ^ shift(T0[(d1>>16)&255], 16) ^ shift(T0[(d2>>24)&255], 8) ^ kw[3];
+            kw = KW[r++];
+            a0 = T0[ar0&255] ^ shift(T0[(ar1>>8)&255], 24) ^ shift(T0[(ar2>>16)&255], 16) ^ shift(T0[(ar3>>24)&255], 8) ^ kw[0];
+            a1 = T0[ar1&255] ^ shift(T0[(ar2>>8)&255], 24) ^ shift(T0[(ar3>>16)&255], 16) ^ shift(T0[(ar0>>24)&255], 8) ^ kw[1];
+            a2 = T0[ar2&255] ^ shift(T0[(ar3>>8)&255], 24) ^ shift(T0[(ar0>>16)&255], 16) ^ shift(T0[(ar1>>24)&255], 8) ^ kw[2];
+            a3 = T0[ar3&255] ^ shift(T0[(ar0>>8)&255], 24) ^ shift(T0[(ar1>>16)&255], 16) ^ shift(T0[(ar2>>24)&255], 8) ^ kw[3];
+            b0 = T0[br0&255] ^ shift(T0[(br1>>8)&255], 24) ^ shift(T0[(br2>>16)&255], 16) ^ shift(T0[(br3>>24)&255], 8) ^ kw[0];
+            b1 = T0[br1&255] ^ shift(T0[(br2>>8)&255], 24) ^ shift(T0[(br3>>16)&255], 16) ^ shift(T0[(br0>>24)&255], 8) ^ kw[1];
+            b2 = T0[br2&255] ^ shift(T0[(br3>>8)&255], 24) ^ shift(T0[(br0>>16)&255], 16) ^ shift(T0[(br1>>24)&255], 8) ^ kw[2];
+            b3 = T0[br3&255] ^ shift(T0[(br0>>8)&255], 24) ^ shift(T0[(br1>>16)&255], 16) ^ shift(T0[(br2>>24)&255], 8) ^ kw[3];
+            c0 = T0[cr0&255] ^ shift(T0[(cr1>>8)&255], 24) ^ shift(T0[(cr2>>16)&255], 16) ^ shift(T0[(cr3>>24)&255], 8) ^ kw[0];
+            c1 = T0[cr1&255] ^ shift(T0[(cr2>>8)&255], 24) ^ shift(T0[(cr3>>16)&255], 16) ^ shift(T0[(cr0>>24)&255], 8) ^ kw[1];
+            c2 = T0[cr2&255] ^ shift(T0[(cr3>>8)&255], 24) ^ shift(T0[(cr0>>16)&255], 16) ^ shift(T0[(cr1>>24)&255], 8) ^ kw[2];
+            c3 = T0[cr3&255] ^ shift(T0[(cr0>>8)&255], 24) ^ shift(T0[(cr1>>16)&255], 16) ^ shift(T0[(cr2>>24)&255], 8) ^ kw[3];
+            d0 = T0[dr0&255] ^ shift(T0[(dr1>>8)&255], 24) ^ shift(T0[(dr2>>16)&255], 16) ^ shift(T0[(dr3>>24)&255], 8) ^ kw[0];
+            d1 = T0[dr1&255] ^ shift(T0[(dr2>>8)&255], 24) ^ shift(T0[(dr3>>16)&255], 16) ^ shift(T0[(dr0>>24)&255], 8) ^ kw[1];
+            d2 = T0[dr2&255] ^ shift(T0[(dr3>>8)&255], 24) ^ shift(T0[(dr0>>16)&255], 16) ^ shift(T0[(dr1>>24)&255], 8) ^ kw[2];
+            d3 = T0[dr3&255] ^ shift(T0[(dr0>>8)&255], 24) ^ shift(T0[(dr1>>16)&255], 16) ^ shift(T0[(dr2>>24)&255], 8) ^ kw[3];
+        }
+
+        kw = KW[r++];
+        ar0 = T0[a0&255] ^ shift(T0[(a1>>8)&255], 24) ^ shift(T0[(a2>>16)&255], 16) ^ shift(T0[(a3>>24)&255], 8) ^ kw[0];
+        ar1 = T0[a1&255] ^ shift(T0[(a2>>8)&255], 24) ^ shift(T0[(a3>>16)&255], 16) ^ shift(T0[(a0>>24)&255], 8) ^ kw[1];
+        ar2 = T0[a2&255] ^ shift(T0[(a3>>8)&255], 24) ^ shift(T0[(a0>>16)&255], 16) ^ shift(T0[(a1>>24)&255], 8) ^ kw[2];
+        ar3 = T0[a3&255] ^ shift(T0[(a0>>8)&255], 24) ^ shift(T0[(a1>>16)&255], 16) ^ shift(T0[(a2>>24)&255], 8) ^ kw[3];
+        br0 = T0[b0&255] ^ shift(T0[(b1>>8)&255], 24) ^ shift(T0[(b2>>16)&255], 16) ^ shift(T0[(b3>>24)&255], 8) ^ kw[0];
+        br1 = T0[b1&255] ^ shift(T0[(b2>>8)&255], 24) ^ shift(T0[(b3>>16)&255], 16) ^ shift(T0[(b0>>24)&255], 8) ^ kw[1];
+        br2 = T0[b2&255] ^ shift(T0[(b3>>8)&255], 24) ^ shift(T0[(b0>>16)&255], 16) ^ shift(T0[(b1>>24)&255], 8) ^ kw[2];
+        br3 = T0[b3&255] ^ shift(T0[(b0>>8)&255], 24) ^ shift(T0[(b1>>16)&255], 16) ^ shift(T0[(b2>>24)&255], 8) ^ kw[3];
+        cr0 = T0[c0&255] ^ shift(T0[(c1>>8)&255], 24) ^ shift(T0[(c2>>16)&255], 16) ^ shift(T0[(c3>>24)&255], 8) ^ kw[0];
+        cr1 = T0[c1&255] ^ shift(T0[(c2>>8)&255], 24) ^ shift(T0[(c3>>16)&255], 16) ^ shift(T0[(c0>>24)&255], 8) ^ kw[1];
+        cr2 = T0[c2&255] ^ shift(T0[(c3>>8)&255], 24) ^ shift(T0[(c0>>16)&255], 16) ^ shift(T0[(c1>>24)&255], 8) ^ kw[2];
+        cr3 = T0[c3&255] ^ shift(T0[(c0>>8)&255], 24) ^ shift(T0[(c1>>16)&255], 16) ^ shift(T0[(c2>>24)&255], 8) ^ kw[3];
+        dr0 = T0[d0&255] ^ shift(T0[(d1>>8)&255], 24) ^ shift(T0[(d2>>16)&255], 16) ^ shift(T0[(d3>>24)&255], 8) ^ kw[0];
+        dr1 = T0[d1&255] ^ shift(T0[(d2>>8)&255], 24) ^ shift(T0[(d3>>16)&255], 16) ^ shift(T0[(d0>>24)&255], 8) ^ kw[1];
+        dr2 = T0[d2&255] ^ shift(T0[(d3>>8)&255], 24) ^ shift(T0[(d0>>16)&255], 16) ^ shift(T0[(d1>>24)&255], 8) ^ kw[2];
+        dr3 = T0[d3&255] ^ shift(T0[(d0>>8)&255], 24) ^ shift(T0[(d1>>16)&255], 16) ^ shift(T0[(d2>>24)&255], 8) ^ kw[3];
+
+        // the final round's table is a simple function of S so we don't use a whole other four tables for it
+        kw = KW[r];
+        Pack.intToLittleEndian((S[ar0&255]&255) ^ ((S[(ar1>>8)&255]&255)<<8) ^ ((s[(ar2>>16)&255]&255)<<16) ^ (s[(ar3>>24)&255]<<24) ^ kw[0], out, outOff);
+        Pack.intToLittleEndian((s[ar1&255]&255) ^ ((S[(ar2>>8)&255]&255)<<8) ^ ((S[(ar3>>16)&255]&255)<<16) ^ (s[(ar0>>24)&255]<<24) ^ kw[1], out, outOff + 4);
+        Pack.intToLittleEndian((s[ar2&255]&255) ^ ((S[(ar3>>8)&255]&255)<<8) ^ ((S[(ar0>>16)&255]&255)<<16) ^ (S[(ar1>>24)&255]<<24) ^ kw[2], out, outOff + 8);
+        Pack.intToLittleEndian((s[ar3&255]&255) ^ ((s[(ar0>>8)&255]&255)<<8) ^ ((s[(ar1>>16)&255]&255)<<16) ^ (S[(ar2>>24)&255]<<24) ^ kw[3], out, outOff + 12);
+        Pack.intToLittleEndian((S[br0&255]&255) ^ ((S[(br1>>8)&255]&255)<<8) ^ ((s[(br2>>16)&255]&255)<<16) ^ (s[(br3>>24)&255]<<24) ^ kw[0], out, outOff + 16);
+        Pack.intToLittleEndian((s[br1&255]&255) ^ ((S[(br2>>8)&255]&255)<<8) ^ ((S[(br3>>16)&255]&255)<<16) ^ (s[(br0>>24)&255]<<24) ^ kw[1], out, outOff + 20);
+        Pack.intToLittleEndian((s[br2&255]&255) ^ ((S[(br3>>8)&255]&255)<<8) ^ ((S[(br0>>16)&255]&255)<<16) ^ (S[(br1>>24)&255]<<24) ^ kw[2], out, outOff + 24);
+        Pack.intToLittleEndian((s[br3&255]&255) ^ ((s[(br0>>8)&255]&255)<<8) ^ ((s[(br1>>16)&255]&255)<<16) ^ (S[(br2>>24)&255]<<24) ^ kw[3], out, outOff + 28);
+        Pack.intToLittleEndian((S[cr0&255]&255) ^ ((S[(cr1>>8)&255]&255)<<8) ^ ((s[(cr2>>16)&255]&255)<<16) ^ (s[(cr3>>24)&255]<<24) ^ kw[0], out, outOff + 32);
+        Pack.intToLittleEndian((s[cr1&255]&255) ^ ((S[(cr2>>8)&255]&255)<<8) ^ ((S[(cr3>>16)&255]&255)<<16) ^ (s[(cr0>>24)&255]<<24) ^ kw[1], out, outOff + 36);
+        Pack.intToLittleEndian((s[cr2&255]&255) ^ ((S[(cr3>>8)&255]&255)<<8) ^ ((S[(cr0>>16)&255]&255)<<16) ^ (S[(cr1>>24)&255]<<24) ^ kw[2], out, outOff + 40);
+        Pack.intToLittleEndian((s[cr3&255]&255) ^ ((s[(cr0>>8)&255]&255)<<8) ^ ((s[(cr1>>16)&255]&255)<<16) ^ (S[(cr2>>24)&255]<<24) ^ kw[3], out, outOff + 44);
+        Pack.intToLittleEndian((S[dr0&255]&255) ^ ((S[(dr1>>8)&255]&255)<<8) ^ ((s[(dr2>>16)&255]&255)<<16) ^ (s[(dr3>>24)&255]<<24) ^ kw[0], out, outOff + 48);
+        Pack.intToLittleEndian((s[dr1&255]&255) ^ ((S[(dr2>>8)&255]&255)<<8) ^ ((S[(dr3>>16)&255]&255)<<16) ^ (s[(dr0>>24)&255]<<24) ^ kw[1], out, outOff + 52);
+        Pack.intToLittleEndian((s[dr2&255]&255) ^ ((S[(dr3>>8)&255]&255)<<8) ^ ((S[(dr0>>16)&255]&255)<<16) ^ (S[(dr1>>24)&255]<<24) ^ kw[2], out, outOff + 56);
+        Pack.intToLittleEndian((s[dr3&255]&255) ^ ((s[(dr0>>8)&255]&255)<<8) ^ ((s[(dr1>>16)&255]&255)<<16) ^ (S[(dr2>>24)&255]<<24) ^ kw[3], out, outOff + 60);
+    }
+
     private void decryptBlock(byte[] input, int inOff, int[][] KW, byte[] out, int outOff)
     {
         int t0 = ((input[inOff++] & 0xff)
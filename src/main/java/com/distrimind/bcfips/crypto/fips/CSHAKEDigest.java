@@ -10,7 +10,6 @@ import com.distrimind.bcfips.util.encoders.Hex;
 class CSHAKEDigest
     extends SHAKEDigest
 {
-    private static final byte[] ZERO_BYTE = new byte[1];
     private static final byte[] padding = new byte[100];
     private final byte[] diff;
 
@@ -42,17 +41,17 @@ class CSHAKEDigest
     private void diffPadAndAbsorb()
     {
         int blockSize = rate / 8;
-        absorb(diff, 0, diff.length * 8);
+        absorb(diff, 0, diff.length);
 
         int required = (blockSize - (diff.length % blockSize)) % blockSize;
 
         while (required > padding.length)
         {
-            absorb(padding, 0, padding.length * 8);
+            absorb(padding, 0, padding.length);
             required -= padding.length;
         }
         
-        absorb(padding, 0, required * 8);
+        absorb(padding, 0, required);
     }
 
     private byte[] encodeString(byte[] str)
@@ -93,7 +92,7 @@ class CSHAKEDigest
         {
             if (!squeezing)
             {
-                absorb(ZERO_BYTE, 0, 2);
+                absorbBits(0x00, 2);
             }
 
             squeeze(out, outOff, ((long)outLen) * 8);
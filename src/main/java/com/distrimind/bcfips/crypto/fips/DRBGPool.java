@@ -0,0 +1,71 @@
+package com.distrimind.bcfips.crypto.fips;
+
+/**
+ * A DRBG made up of a fixed set of independently seeded DRBGs. Callers are mapped to a member by
+ * thread id, so threads sharing a pool only contend when they land on the same member. Each member
+ * does its own locking, reseeding and health testing.
+ */
+class DRBGPool
+    implements DRBG
+{
+    private final DRBG[] drbgs;
+
+    DRBGPool(DRBG[] drbgs)
+    {
+        this.drbgs = drbgs;
+    }
+
+    private DRBG select()
+    {
+        // thread ids are handed out sequentially, so this spreads threads evenly over the pool.
+        long id = Thread.currentThread().getId();
+
+        return drbgs[(int)((id & Long.MAX_VALUE) % drbgs.length)];
+    }
+
+    public int getBlockSize()
+    {
+        return drbgs[0].getBlockSize();
+    }
+
+    public int getSecurityStrength()
+    {
+        return drbgs[0].getSecurityStrength();
+    }
+
+    public int generate(byte[] output, byte[] additionalInput, boolean predictionResistant)
+    {
+        DRBG drbg = select();
+
+        synchronized (drbg)
+        {
+            // check if a reseed is required...
+            int rv = drbg.generate(output, additionalInput, predictionResistant);
+            if (rv < 0)
+            {
+                drbg.reseed(null);
+                rv = drbg.generate(output, additionalInput, predictionResistant);
+            }
+
+            return rv;
+        }
+    }
+
+    public void reseed(byte[] additionalInput)
+    {
+        for (int i = 0; i != drbgs.length; i++)
+        {
+            drbgs[i].reseed(additionalInput);
+        }
+    }
+
+    public VariantInternalKatTest createSelfTest(FipsAlgorithm algorithm)
+    {
+        return select().createSelfTest(algorithm);
+    }
+
+    public VariantInternalKatTest createReseedSelfTest(FipsAlgorithm algorithm)
+    {
+        return select().createReseedSelfTest(algorithm);
+    }
+}
@@ -12,6 +12,7 @@ import com.distrimind.bcfips.crypto.internal.params.EcPublicKeyParameters;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithRandom;
 import com.distrimind.bcfips.math.ec.ECAlgorithms;
 import com.distrimind.bcfips.math.ec.ECConstants;
+import com.distrimind.bcfips.math.ec.ECCurve;
 import com.distrimind.bcfips.math.ec.ECMultiplier;
 import com.distrimind.bcfips.math.ec.ECPoint;
 import com.distrimind.bcfips.math.ec.FixedPointCombMultiplier;
@@ -172,6 +173,108 @@ class EcDsaSigner
         return v.equals(r);
     }
 
+    /**
+     * Verify a batch of signatures, returning for each one the same result verifySignature() would if the
+     * signer was initialised with the corresponding key. Signatures are processed in groups sharing the same
+     * domain parameters, with the inverses of s for a group found using a single modular inversion and the
+     * points for the group normalized using a single field inversion.
+     *
+     * @param keys the public keys the signatures are to be verified against.
+     * @param messages the messages (digests) the signatures are for.
+     * @param r the r components of the signatures.
+     * @param s the s components of the signatures.
+     * @return an array of verification results, in the order of the signatures passed in.
+     */
+    public boolean[] verifySignatures(
+        EcPublicKeyParameters[] keys,
+        byte[][]                messages,
+        BigInteger[]            r,
+        BigInteger[]            s)
+    {
+        int count = keys.length;
+        if (messages.length != count || r.length != count || s.length != count)
+        {
+            throw new IllegalArgumentException("batch arrays must be the same length");
+        }
+
+        boolean[] results = new boolean[count];
+        boolean[] grouped = new boolean[count];
+        int[] members = new int[count];
+        BigInteger[] products = new BigInteger[count];
+        ECPoint[] points = new ECPoint[count];
+
+        for (int first = 0; first < count; ++first)
+        {
+            if (grouped[first])
+            {
+                continue;
+            }
+
+            EcDomainParameters ec = keys[first].getParameters();
+            ECPoint G = ec.getG();
+            ECCurve curve = G.getCurve();
+            BigInteger n = ec.getN();
+
+            // collect the signatures for these domain parameters with r and s in the range [1,n-1]
+            int size = 0;
+            for (int i = first; i < count; ++i)
+            {
+                EcDomainParameters params = keys[i].getParameters();
+                if (grouped[i] || (params != ec && !(params.getG().getCurve() == curve && params.getN().equals(n) && params.getG().equals(G))))
+                {
+                    continue;
+                }
+
+                grouped[i] = true;
+                if (r[i].compareTo(ONE) >= 0 && r[i].compareTo(n) < 0 && s[i].compareTo(ONE) >= 0 && s[i].compareTo(n) < 0)
+                {
+                    products[size] = (size == 0) ? s[i] : products[size - 1].multiply(s[i]).mod(n);
+                    members[size++] = i;
+                }
+            }
+
+            if (size == 0)
+            {
+                continue;
+            }
+
+            // Montgomery's trick - invert the product of the s values, then peel off each inverse.
+            BigInteger inv = products[size - 1].modInverse(n);
+            for (int j = size - 1; j >= 0; --j)
+            {
+                int i = members[j];
+                BigInteger c = (j == 0) ? inv : inv.multiply(products[j - 1]).mod(n);
+                inv = inv.multiply(s[i]).mod(n);
+
+                BigInteger e = calculateE(n, messages[i]);
+                BigInteger u1 = e.multiply(c).mod(n);
+                BigInteger u2 = r[i].multiply(c).mod(n);
+
+                points[j] = ECAlgorithms.sumOfTwoMultiplies(G, u1, keys[i].getQ(), u2);
+            }
+
+            curve.normalizeAll(points, 0, size, null);
+
+            for (int j = 0; j < size; ++j)
+            {
+                int i = members[j];
+
+                // components must be bogus.
+                if (!points[j].isInfinity())
+                {
+                    BigInteger v = points[j].getAffineXCoord().toBigInteger().mod(n);
+
+                    results[i] = v.equals(r[i]);
+                }
+
+                points[j] = null;
+                products[j] = null;
+            }
+        }
+
+        return results;
+    }
+
     protected BigInteger calculateE(BigInteger n, byte[] message)
     {
         int log2n = n.bitLength();
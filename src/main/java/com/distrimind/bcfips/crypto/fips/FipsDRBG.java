@@ -12,6 +12,7 @@ import com.distrimind.bcfips.crypto.internal.Mac;
 import com.distrimind.bcfips.crypto.internal.macs.HMac;
 import com.distrimind.bcfips.crypto.util.BasicEntropySourceProvider;
 import com.distrimind.bcfips.util.Arrays;
+import com.distrimind.bcfips.util.Pack;
 import com.distrimind.bcfips.util.Strings;
 import com.distrimind.bcfips.util.encoders.Hex;
 
@@ -126,10 +127,18 @@ public final class FipsDRBG
 
     static
     {
-        // FSM_STATE:3.DRBG.0, "DRBG KAT" ,"The module is performing DRBG KAT self-test"
-        // FSM_TRANS:3.DRBG.0, "POWER ON SELF-TEST", "DRBG KAT", "Invoke DRBG KAT self-test"
-        drbgStartupTest();
-        // FSM_TRANS:3.DRBG.1, "DRBG KAT", "POWER ON SELF-TEST", "DRBG KAT self-test successful completion"
+        FipsStatus.startFamilySelfTest();
+        try
+        {
+            // FSM_STATE:3.DRBG.0, "DRBG KAT" ,"The module is performing DRBG KAT self-test"
+            // FSM_TRANS:3.DRBG.0, "POWER ON SELF-TEST", "DRBG KAT", "Invoke DRBG KAT self-test"
+            drbgStartupTest();
+            // FSM_TRANS:3.DRBG.1, "DRBG KAT", "POWER ON SELF-TEST", "DRBG KAT self-test successful completion"
+        }
+        finally
+        {
+            FipsStatus.endFamilySelfTest();
+        }
     }
 
     public static class Base
@@ -200,6 +209,7 @@ public final class FipsDRBG
         private byte[] personalizationString;
         private int securityStrength = 256;
         private int entropyBitsRequired = 256;
+        private int poolSize = 1;
 
         Builder(FipsAlgorithm algorithm, SecureRandom random, EntropySourceProvider entropySourceProvider)
         {
@@ -249,6 +259,31 @@ public final class FipsDRBG
             return this;
         }
 
+        /**
+         * Set the number of DRBGs backing each SecureRandom built. With a pool size greater than 1 each
+         * SecureRandom is backed by a pool of independently seeded DRBGs, with calling threads spread across
+         * the pool, so threads sharing the SecureRandom do not all queue on a single DRBG.
+         * <p>
+         * Each DRBG in the pool draws its own entropy source from the builder's EntropySourceProvider and is
+         * instantiated with the nonce passed to build() followed by its index in the pool. Reseeding and
+         * health testing apply to each DRBG individually. The default pool size is 1.
+         * </p>
+         *
+         * @param poolSize the number of DRBGs to use.
+         * @return the current Builder instance.
+         */
+        public Builder setPoolSize(int poolSize)
+        {
+            if (poolSize < 1)
+            {
+                throw new IllegalArgumentException("pool size must be at least 1");
+            }
+
+            this.poolSize = poolSize;
+
+            return this;
+        }
+
         /**
          * Build a SecureRandom based on a SP 800-90A DRBG.
          *
@@ -277,6 +312,26 @@ public final class FipsDRBG
         private FipsSecureRandom build(FipsAlgorithm algorithm, byte[] nonce, boolean predictionResistant, byte[] additionalInput)
         {
             EntropySource entropySource = entropySourceProvider.get(entropyBitsRequired);
+
+            if (poolSize == 1)
+            {
+                return new FipsSecureRandom(random, createDRBG(algorithm, entropySource, Arrays.clone(nonce), additionalInput), entropySource, predictionResistant);
+            }
+
+            DRBG[] drbgs = new DRBG[poolSize];
+            for (int i = 0; i != poolSize; i++)
+            {
+                // each member has its own entropy source, and its own nonce, so instantiations are independent.
+                EntropySource memberEntropySource = (i == 0) ? entropySource : entropySourceProvider.get(entropyBitsRequired);
+
+                drbgs[i] = createDRBG(algorithm, memberEntropySource, Arrays.concatenate(nonce, Pack.intToBigEndian(i)), additionalInput);
+            }
+
+            return new FipsSecureRandom(random, new DRBGPool(drbgs), entropySource, predictionResistant);
+        }
+
+        private DRBG createDRBG(FipsAlgorithm algorithm, EntropySource entropySource, byte[] nonce, byte[] additionalInput)
+        {
             if (algorithm.basicVariation() instanceof FipsSHS.Variations)
             {
                 switch (((FipsSHS.Variations)algorithm.basicVariation()))
@@ -288,7 +343,7 @@ public final class FipsDRBG
                 case SHA512:
                 case SHA512_224:
                 case SHA512_256:
-                    return new FipsSecureRandom(random, new DRBGPseudoRandom(algorithm, entropySource, new HashDRBGProvider(algorithm, Arrays.clone(nonce), personalizationString, securityStrength, additionalInput)), entropySource, predictionResistant);
+                    return new DRBGPseudoRandom(algorithm, entropySource, new HashDRBGProvider(algorithm, nonce, personalizationString, securityStrength, additionalInput));
                 case SHA1_HMAC:
                 case SHA224_HMAC:
                 case SHA256_HMAC:
@@ -296,7 +351,7 @@ public final class FipsDRBG
                 case SHA512_HMAC:
                 case SHA512_224_HMAC:
                 case SHA512_256_HMAC:
-                    return new FipsSecureRandom(random, new DRBGPseudoRandom(algorithm, entropySource, new HMacDRBGProvider(algorithm, Arrays.clone(nonce), personalizationString, securityStrength, additionalInput)), entropySource, predictionResistant);
+                    return new DRBGPseudoRandom(algorithm, entropySource, new HMacDRBGProvider(algorithm, nonce, personalizationString, securityStrength, additionalInput));
                 default:
                     throw new IllegalArgumentException("Unknown algorithm passed to build(): " + algorithm.getName());
                 }
@@ -328,7 +383,7 @@ public final class FipsDRBG
                     throw new IllegalArgumentException("Unknown algorithm passed to build(): " + algorithm.getName());
                 }
 
-                return new FipsSecureRandom(random, new DRBGPseudoRandom(algorithm, entropySource, new CTRDRBGProvider(cipher, keySizeInBits, Arrays.clone(nonce), personalizationString, securityStrength, additionalInput)), entropySource, predictionResistant);
+                return new DRBGPseudoRandom(algorithm, entropySource, new CTRDRBGProvider(cipher, keySizeInBits, nonce, personalizationString, securityStrength, additionalInput));
             }
         }
     }
@@ -949,6 +949,60 @@ public final class FipsEC
         }
     }
 
+    /**
+     * Batch verifier for EC DSA signatures. Each signature is presented as the public key, the digest of the
+     * message calculated using the digest the signature was generated with, and the r and s values. Every
+     * signature gets the same result it would get from an individual verifier, with the modular and field
+     * inversions shared between the signatures in the batch that use the same domain parameters.
+     */
+    public static final class DSABatchVerifier
+    {
+        /**
+         * Base constructor.
+         */
+        public DSABatchVerifier()
+        {
+            checkEnabled();
+        }
+
+        /**
+         * Verify a batch of signatures.
+         *
+         * @param keys the public keys to verify the signatures with.
+         * @param digests the message digests the signatures were generated for.
+         * @param r the r values of the signatures.
+         * @param s the s values of the signatures.
+         * @return an array of verification results, in the order the signatures were passed in.
+         */
+        public boolean[] verify(AsymmetricECPublicKey[] keys, byte[][] digests, BigInteger[] r, BigInteger[] s)
+        {
+            int count = keys.length;
+            if (digests.length != count || r.length != count || s.length != count)
+            {
+                throw new IllegalArgumentException("batch arrays must be the same length");
+            }
+
+            EcDsaSigner ecdsaSigner = DSA_PROVIDER.createEngine();
+            EcPublicKeyParameters[] publicKeyParameters = new EcPublicKeyParameters[count];
+
+            ECDomainParameters lastDomainParameters = null;
+            EcDomainParameters lastParams = null;
+            for (int i = 0; i != count; i++)
+            {
+                ECDomainParameters domainParameters = keys[i].getDomainParameters();
+                if (domainParameters != lastDomainParameters)
+                {
+                    lastDomainParameters = domainParameters;
+                    lastParams = getDomainParams(domainParameters);
+                }
+
+                publicKeyParameters[i] = new EcPublicKeyParameters(keys[i].getW(), lastParams);
+            }
+
+            return ecdsaSigner.verifySignatures(publicKeyParameters, digests, r, s);
+        }
+    }
+
     private static void checkEnabled()
     {
         if (Properties.isOverrideSet("com.distrimind.bcfips.ec.disable"))
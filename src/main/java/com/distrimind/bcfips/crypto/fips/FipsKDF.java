@@ -122,42 +122,50 @@ public final class FipsKDF
 
     static
     {
-        // FSM_STATE:3.KBKDF.0,"KBKDF GENERATE KAT", "The module is performing KBKDF generate KAT self-test"
-        // FSM_TRANS:3.KBKDF.0,"POWER ON SELF-TEST", "PBKDF GENERATE KAT",	"Invoke KBKDF Generate KAT self-test"
-        new CounterModeProvider(PRF.AES_CMAC).createEngine();
-        new CounterModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
-        new CounterModeProvider(PRF.SHA1_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA224_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA256_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA384_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA512_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA512_224_HMAC).createEngine();
-        new CounterModeProvider(PRF.SHA512_256_HMAC).createEngine();
-
-        new FeedbackModeProvider(PRF.AES_CMAC).createEngine();
-        new FeedbackModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA1_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA224_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA256_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA384_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA512_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA512_224_HMAC).createEngine();
-        new FeedbackModeProvider(PRF.SHA512_256_HMAC).createEngine();
-
-        new DoublePipelineModeProvider(PRF.AES_CMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA1_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA224_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA256_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA384_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA512_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA512_224_HMAC).createEngine();
-        new DoublePipelineModeProvider(PRF.SHA512_256_HMAC).createEngine();
-
-        tlsLegacyKAT();   // full KAT test - not just MD5
-        tls1_1and2KAT();
-        sshKAT();
-        // FSM_TRANS:3.KBKDF.1, "KBKDF GENERATE KAT", "POWER ON SELF-TEST", "KBKDF Generate KAT self-test successful completion"
+        FipsStatus.startFamilySelfTest();
+        try
+        {
+            // FSM_STATE:3.KBKDF.0,"KBKDF GENERATE KAT", "The module is performing KBKDF generate KAT self-test"
+            // FSM_TRANS:3.KBKDF.0,"POWER ON SELF-TEST", "PBKDF GENERATE KAT",	"Invoke KBKDF Generate KAT self-test"
+            new CounterModeProvider(PRF.AES_CMAC).createEngine();
+            new CounterModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
+            new CounterModeProvider(PRF.SHA1_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA224_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA256_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA384_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA512_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA512_224_HMAC).createEngine();
+            new CounterModeProvider(PRF.SHA512_256_HMAC).createEngine();
+
+            new FeedbackModeProvider(PRF.AES_CMAC).createEngine();
+            new FeedbackModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA1_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA224_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA256_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA384_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA512_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA512_224_HMAC).createEngine();
+            new FeedbackModeProvider(PRF.SHA512_256_HMAC).createEngine();
+
+            new DoublePipelineModeProvider(PRF.AES_CMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.TRIPLEDES_CMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA1_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA224_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA256_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA384_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA512_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA512_224_HMAC).createEngine();
+            new DoublePipelineModeProvider(PRF.SHA512_256_HMAC).createEngine();
+
+            tlsLegacyKAT();   // full KAT test - not just MD5
+            tls1_1and2KAT();
+            sshKAT();
+            // FSM_TRANS:3.KBKDF.1, "KBKDF GENERATE KAT", "POWER ON SELF-TEST", "KBKDF Generate KAT self-test successful completion"
+        }
+        finally
+        {
+            FipsStatus.endFamilySelfTest();
+        }
     }
 
     /**
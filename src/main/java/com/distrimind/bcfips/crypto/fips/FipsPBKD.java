@@ -67,10 +67,16 @@ public final class FipsPBKD
         private final PasswordConverter converter;
         private final byte[] salt;
         private final int    iterationCount;
+        private final boolean parallel;
 
         private byte[] password;
 
         private Parameters(FipsDigestAlgorithm digestAlgorithm, PasswordConverter converter, byte[] password, int iterationCount, byte[] salt)
+        {
+            this(digestAlgorithm, converter, password, iterationCount, salt, false);
+        }
+
+        private Parameters(FipsDigestAlgorithm digestAlgorithm, PasswordConverter converter, byte[] password, int iterationCount, byte[] salt, boolean parallel)
         {
             super(ALGORITHM_PBKDF2);
             this.digestAlgorithm = digestAlgorithm;
@@ -78,6 +84,7 @@ public final class FipsPBKD
             this.password = password;
             this.iterationCount = iterationCount;
             this.salt = salt;
+            this.parallel = parallel;
 
             if (CryptoServicesRegistrar.isInApprovedOnlyMode())
             {
@@ -99,12 +106,25 @@ public final class FipsPBKD
 
         public Parameters withSalt(byte[] salt)
         {                                                   // need copy of password as zeroize on finalisation
-            return new Parameters(digestAlgorithm, converter, getPassword(), iterationCount, Arrays.clone(salt));
+            return new Parameters(digestAlgorithm, converter, getPassword(), iterationCount, Arrays.clone(salt), parallel);
         }
 
         public Parameters withIterationCount(int iterationCount)
         {                                                   // need copy of password as zeroize on finalisation
-            return new Parameters(digestAlgorithm, converter, getPassword(), iterationCount, salt);
+            return new Parameters(digestAlgorithm, converter, getPassword(), iterationCount, salt, parallel);
+        }
+
+        /**
+         * Return a version of these parameters which calculates the blocks of a derived key concurrently
+         * on the common fork/join pool. Only outputs longer than the PRF's output size benefit, the
+         * derived key is the same as a serial calculation.
+         *
+         * @param parallel true if output blocks should be calculated in parallel, false otherwise.
+         * @return a new parameter set with the parallel derivation setting.
+         */
+        public Parameters withParallelDerivation(boolean parallel)
+        {                                                   // need copy of password as zeroize on finalisation
+            return new Parameters(digestAlgorithm, converter, getPassword(), iterationCount, salt, parallel);
         }
 
         synchronized byte[] getPassword()
@@ -132,6 +152,11 @@ public final class FipsPBKD
             return converter;
         }
 
+        public boolean isParallelDerivation()
+        {
+            return parallel;
+        }
+
         protected void finalize()
         {
             synchronized (this)
@@ -151,7 +176,7 @@ public final class FipsPBKD
     {
         public PasswordBasedDeriver<Parameters> createDeriver(final Parameters parameters)
         {
-            final PKCS5S2ParametersGenerator<Parameters> gen = new PKCS5S2ParametersGenerator<Parameters>(parameters, FipsSHS.createHMac(parameters.getPRF()));
+            final PKCS5S2ParametersGenerator<Parameters> gen = new PKCS5S2ParametersGenerator<Parameters>(parameters, FipsSHS.createHMac(parameters.getPRF()), parameters.isParallelDerivation());
 
             gen.init(parameters.getPassword(), parameters.getSalt(), parameters.getIterationCount());
 
@@ -37,6 +37,7 @@ import com.distrimind.bcfips.crypto.internal.encodings.OAEPEncoding;
 import com.distrimind.bcfips.crypto.internal.encodings.PKCS1Encoding;
 import com.distrimind.bcfips.crypto.internal.io.SignerOutputStream;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithRandom;
+import com.distrimind.bcfips.crypto.internal.params.RsaBlindingFactors;
 import com.distrimind.bcfips.crypto.internal.params.RsaKeyGenerationParameters;
 import com.distrimind.bcfips.crypto.internal.params.RsaKeyParameters;
 import com.distrimind.bcfips.crypto.internal.params.RsaPrivateCrtKeyParameters;
@@ -163,6 +164,7 @@ public final class FipsRSA
         private BigInteger publicExponent;
         private int keySize;
         private int certainty;
+        private boolean parallel;
 
         /**
          * Base constructor.
@@ -224,16 +226,35 @@ public final class FipsRSA
         }
 
         private KeyGenParameters(FipsAlgorithm algorithm, BigInteger publicExponent, int keySize, int certainty)
+        {
+            this(algorithm, publicExponent, keySize, certainty, false);
+        }
+
+        private KeyGenParameters(FipsAlgorithm algorithm, BigInteger publicExponent, int keySize, int certainty, boolean parallel)
         {
             super(algorithm);
 
             this.publicExponent = publicExponent;
             this.keySize = keySize;
             this.certainty = certainty;
+            this.parallel = parallel;
 
             validate();
         }
 
+        /**
+         * Return a version of these parameters which searches for the primes p and q concurrently on the
+         * common fork/join pool. The candidates are subject to exactly the same FIPS 186-4 checks as a
+         * serial search, only the time taken to find them is affected.
+         *
+         * @param parallel true if the prime search should be run in parallel, false otherwise.
+         * @return a new parameter set with the parallel prime search setting.
+         */
+        public KeyGenParameters withParallelPrimeSearch(boolean parallel)
+        {
+            return new KeyGenParameters(getAlgorithm(), publicExponent, keySize, certainty, parallel);
+        }
+
         private void validate()
         {
             if (CryptoServicesRegistrar.isInApprovedOnlyMode())
@@ -286,6 +307,11 @@ public final class FipsRSA
         {
             return certainty;
         }
+
+        public boolean isParallelPrimeSearch()
+        {
+            return parallel;
+        }
     }
 
     /**
@@ -576,7 +602,7 @@ public final class FipsRSA
     public static final class KeyPairGenerator
         extends FipsAsymmetricKeyPairGenerator<KeyGenParameters, AsymmetricRSAPublicKey, AsymmetricRSAPrivateKey>
     {
-        private final RsaKeyPairGenerator engine = new RsaKeyPairGenerator();
+        private final RsaKeyPairGenerator engine;
         private final RsaKeyGenerationParameters param;
 
         public KeyPairGenerator(KeyGenParameters keyGenParameters, SecureRandom random)
@@ -593,6 +619,7 @@ public final class FipsRSA
             }
 
             this.param = new RsaKeyGenerationParameters(keyGenParameters.getPublicExponent(), random, keySize, keyGenParameters.getCertainty());
+            this.engine = new RsaKeyPairGenerator(keyGenParameters.isParallelPrimeSearch() || Properties.isOverrideSet("com.distrimind.bcfips.rsa.parallel_keygen"));
             this.engine.init(param);
         }
 
@@ -1381,7 +1408,8 @@ public final class FipsRSA
                 }
                 else
                 {
-                    return new RsaPrivateCrtKeyParameters(k.getModulus(), k.getPublicExponent(), k.getPrivateExponent(), k.getP(), k.getQ(), k.getDP(), k.getDQ(), k.getQInv());
+                    return new RsaPrivateCrtKeyParameters(k.getModulus(), k.getPublicExponent(), k.getPrivateExponent(), k.getP(), k.getQ(), k.getDP(), k.getDQ(), k.getQInv(),
+                        RsaBlindingFactors.forKey(k));
                 }
             }
         });
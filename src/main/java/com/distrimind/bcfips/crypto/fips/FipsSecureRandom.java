@@ -39,6 +39,13 @@ public final class FipsSecureRandom
 
     public void nextBytes(byte[] bytes, byte[] additionalInput)
     {
+        if (drbg instanceof DRBGPool)
+        {
+            // each DRBG in the pool is locked individually.
+            drbg.generate(bytes, additionalInput, predictionResistant);
+            return;
+        }
+
         synchronized (drbg)
         {
             // check if a reseed is required...
@@ -119,6 +126,20 @@ public final class FipsSecureRandom
         @Override
         protected void engineNextBytes(byte[] bytes)
         {
+            if (drbg instanceof DRBGPool)
+            {
+                if (bytes == null)
+                {
+                    throw new NullPointerException("bytes cannot be null");
+                }
+                if (bytes.length != 0)
+                {
+                    // each DRBG in the pool is locked individually.
+                    drbg.generate(bytes, null, predictionResistant);
+                }
+                return;
+            }
+
             synchronized (drbg)
             {
                 if (bytes == null)
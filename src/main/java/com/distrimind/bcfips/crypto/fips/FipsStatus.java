@@ -6,10 +6,22 @@ import java.net.URLDecoder;
 import java.security.AccessController;
 import java.security.CodeSource;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -18,7 +30,9 @@ import com.distrimind.bcfips.crypto.CryptoServicesRegistrar;
 import com.distrimind.bcfips.crypto.internal.macs.HMac;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameterImpl;
 import com.distrimind.bcfips.util.Pack;
+import com.distrimind.bcfips.util.Properties;
 import com.distrimind.bcfips.util.Strings;
+import com.distrimind.bcfips.util.io.Streams;
 
 /**
  * Status utility class - it has three methods on it, one for returning "isReady" status, one for a status message,
@@ -34,7 +48,10 @@ public final class FipsStatus
         FipsDRBG.class.getName(), FipsDSA.class.getName(), FipsEC.class.getName(),
         FipsKDF.class.getName(), FipsPBKD.class.getName(), FipsRSA.class.getName(), FipsSHS.class.getName() };
     private static final AtomicBoolean readyStatus = new AtomicBoolean(false);
+    private static final Map<String, Long> selfTestTimes = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+    private static final ThreadLocal<int[]> familySelfTestDepth = new ThreadLocal<int[]>();
 
+    private static volatile long moduleHMACTime = -1;
     private static volatile Loader loader;
     private static volatile Throwable statusException;
 
@@ -45,12 +62,27 @@ public final class FipsStatus
 
     /**
      * Check to see if the FIPS module is ready for operation.
+     * <p>
+     * If the property "com.distrimind.bcfips.fips.deferred_selftest" is set the algorithm self-tests are not run here,
+     * rather each algorithm family is tested when it is first used.
+     * </p>
      *
      * @return true if the module is ready for operation with all self-tests complete.
      */
     public static boolean isReady()
     {
         // FSM_STATE:2.0, "POWER ON INITIALIZATION", "Initialization of the module after power on or RST"
+        if (Thread.currentThread() instanceof SelfTestThread)
+        {
+            // statusLock is held by the loader on our behalf - respond as for a re-entrant call during the self-tests.
+            if (statusException != null)
+            {
+                throw new FipsOperationError("Module in error status: " + statusException.getMessage(), statusException);
+            }
+
+            return readyStatus.get();
+        }
+
         synchronized (statusLock)
         {
             if (loader == null && statusException == null)
@@ -85,9 +117,52 @@ public final class FipsStatus
         return readyStatus.get();
     }
 
+    /**
+     * Return the time taken by the power on self-tests, as a map of algorithm class name to the
+     * number of nanoseconds its initialisation took. The figure for a class includes any other
+     * classes that were first initialised on its behalf. The map is empty until isReady() has been called, and
+     * remains empty if the self-tests are deferred.
+     *
+     * @return an unmodifiable map of class name to self-test time in nanoseconds.
+     */
+    public static Map<String, Long> getSelfTestTimes()
+    {
+        synchronized (selfTestTimes)
+        {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(selfTestTimes));
+        }
+    }
+
     static boolean isBooting()
     {
-        return !readyStatus.get();
+        return !readyStatus.get() || familySelfTestDepth.get() != null;
+    }
+
+    /**
+     * Mark the start of an algorithm family's self-tests on this thread. With deferred self-tests
+     * a family is only tested when it is first used, so the module may already be ready - the
+     * thread is still treated as booting until the matching endFamilySelfTest().
+     */
+    static void startFamilySelfTest()
+    {
+        int[] depth = familySelfTestDepth.get();
+        if (depth == null)
+        {
+            familySelfTestDepth.set(new int[] { 1 });
+        }
+        else
+        {
+            depth[0]++;
+        }
+    }
+
+    static void endFamilySelfTest()
+    {
+        int[] depth = familySelfTestDepth.get();
+        if (depth != null && --depth[0] == 0)
+        {
+            familySelfTestDepth.remove();
+        }
     }
 
     private static void checksumValidate()
@@ -203,29 +278,37 @@ public final class FipsStatus
 
     private static void loadClass(String className)
     {
+        long start = System.nanoTime();
         try
         {
             Class.forName(className);
+
+            selfTestTimes.put(className.substring(className.lastIndexOf('.') + 1), System.nanoTime() - start);
         }
         catch (ExceptionInInitializerError e)
         {
-            if (e.getCause() != null)
-            {
-                statusException = e.getCause();
-            }
-            else
-            {
-                statusException = e;
-            }
+            setLoadException(e.getCause() != null ? e.getCause() : e);
             throw e;
         }
         catch (ClassNotFoundException e)
         {
-            statusException = e;
+            setLoadException(e);
             throw new IllegalStateException("Unable to initialize module: " + e.getMessage(), e);
         }
     }
 
+    private static void setLoadException(Throwable e)
+    {
+        // with a parallel start up the first failure is the one reported.
+        synchronized (selfTestTimes)
+        {
+            if (statusException == null)
+            {
+                statusException = e;
+            }
+        }
+    }
+
     /**
      * Return the HMAC used to verify that the code contained in the module is the same
      *
@@ -233,6 +316,7 @@ public final class FipsStatus
      */
     public static byte[] getModuleHMAC()
     {
+        long start = System.nanoTime();
         try
         {
             String rscName = getResourceName();
@@ -243,6 +327,20 @@ public final class FipsStatus
         {
             return new byte[32];
         }
+        finally
+        {
+            moduleHMACTime = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Return the time taken by the last module HMAC calculation.
+     *
+     * @return the time in nanoseconds taken by the last calculation, -1 if the HMAC has not been calculated.
+     */
+    public static long getModuleHMACTime()
+    {
+        return moduleHMACTime;
     }
 
     private static byte[] calculateModuleHMAC(JarFile jarFile)
@@ -277,29 +375,32 @@ public final class FipsStatus
                 }
             }
 
-            byte[] buf = new byte[8192];
-            for (Map.Entry<String, JarEntry> entry : index.entrySet())
+            List<JarEntry> entries = new ArrayList<JarEntry>(index.values());
+            int window = 4 * ForkJoinPool.getCommonPoolParallelism();
+
+            if (window > 4)
             {
-                JarEntry jarEntry = entry.getValue();
-                InputStream is = jarFile.getInputStream(jarEntry);
-
-                // Read in each jar entry. A SecurityException will
-                // be thrown if a signature/digest check fails - if that happens
-                // we'll just return an empty checksum
-
-                // header information
-                byte[] encName = Strings.toUTF8ByteArray(jarEntry.getName());
-                hMac.update((byte)0x5B);   // '['
-                hMac.update(encName, 0, encName.length);
-                hMac.update(Pack.longToBigEndian(jarEntry.getSize()), 0, 8);
-                hMac.update((byte)0x5D);    // ']'
-                // contents
-                int n;
-                while ((n = is.read(buf, 0, buf.length)) != -1)
+                // inflate entries ahead of the HMAC on the common pool - the HMAC itself is a single chain
+                // so the entries are still added to it one at a time and in order.
+                List<Future<byte[]>> pending = new ArrayList<Future<byte[]>>();
+                int next = 0;
+
+                for (int i = 0; i != entries.size(); i++)
+                {
+                    while (next < entries.size() && next < i + window)
+                    {
+                        pending.add(ForkJoinPool.commonPool().submit(new EntryReader(jarFile, entries.get(next++))));
+                    }
+
+                    updateModuleHMAC(hMac, entries.get(i), pending.set(i, null).get());
+                }
+            }
+            else
+            {
+                for (JarEntry jarEntry : entries)
                 {
-                    hMac.update(buf, 0, n);
+                    updateModuleHMAC(hMac, jarEntry, readEntry(jarFile, jarEntry));
                 }
-                is.close();
             }
 
             hMac.update((byte)0x5B);   // '['
@@ -319,6 +420,67 @@ public final class FipsStatus
         }
     }
 
+    private static void updateModuleHMAC(HMac hMac, JarEntry jarEntry, byte[] contents)
+    {
+        // header information
+        byte[] encName = Strings.toUTF8ByteArray(jarEntry.getName());
+        hMac.update((byte)0x5B);   // '['
+        hMac.update(encName, 0, encName.length);
+        hMac.update(Pack.longToBigEndian(jarEntry.getSize()), 0, 8);
+        hMac.update((byte)0x5D);    // ']'
+        // contents
+        hMac.update(contents, 0, contents.length);
+    }
+
+    private static byte[] readEntry(JarFile jarFile, JarEntry jarEntry)
+        throws IOException
+    {
+        // Read in each jar entry. A SecurityException will
+        // be thrown if a signature/digest check fails - if that happens
+        // we'll just return an empty checksum
+        InputStream is = jarFile.getInputStream(jarEntry);
+        try
+        {
+            long size = jarEntry.getSize();
+            if (size < 0 || size > Integer.MAX_VALUE)
+            {
+                return Streams.readAll(is);
+            }
+
+            // read straight into a buffer of the final size, the entry is then passed to the HMAC in one update.
+            byte[] contents = new byte[(int)size];
+            if (Streams.readFully(is, contents) != contents.length || is.read() >= 0)
+            {
+                throw new IOException("jar entry " + jarEntry.getName() + " does not match its recorded size");
+            }
+
+            return contents;
+        }
+        finally
+        {
+            is.close();
+        }
+    }
+
+    private static class EntryReader
+        implements Callable<byte[]>
+    {
+        private final JarFile jarFile;
+        private final JarEntry jarEntry;
+
+        EntryReader(JarFile jarFile, JarEntry jarEntry)
+        {
+            this.jarFile = jarFile;
+            this.jarEntry = jarEntry;
+        }
+
+        public byte[] call()
+            throws IOException
+        {
+            return readEntry(jarFile, jarEntry);
+        }
+    }
+
     private static String getResourceName()
     {
         // we use the MARKER file, at the same level in the class hierarchy as this
@@ -413,6 +575,20 @@ public final class FipsStatus
                 throws Exception
         {
             // FSM_STATE:3.0, "POWER ON SELF-TEST", ""
+            if (Properties.isOverrideSet("com.distrimind.bcfips.fips.deferred_selftest"))
+            {
+                // each algorithm family runs its self-tests in its static initializer, so when its first operator
+                // is created. The JVM's class initialisation acts as the per family barrier, and a failure
+                // still moves the module to the error state via moveToErrorStatus().
+                return;
+            }
+
+            if (Properties.isOverrideSet("com.distrimind.bcfips.fips.parallel_selftest") && !isInClassInitializer())
+            {
+                runParallel();
+                return;
+            }
+
             for (String cls : classes)
             {
                 if (!isErrorStatus())
@@ -421,6 +597,104 @@ public final class FipsStatus
                 }
             }
         }
+
+        /**
+         * Waiting on other threads while a class initialiser is running on this one risks deadlock, as the
+         * self-tests may need the class being initialised (CryptoServicesRegistrar for example). A parallel start
+         * up therefore needs FipsStatus.isReady() to be called directly, rather than from a static initialiser.
+         */
+        private boolean isInClassInitializer()
+        {
+            StackTraceElement[] stack = new Throwable().getStackTrace();
+
+            for (int i = 0; i != stack.length; i++)
+            {
+                if ("<clinit>".equals(stack[i].getMethodName()))
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Initialise the algorithm classes, and so run their self-tests, concurrently. Any failure
+         * still results in the module moving to the error state, as for the serial start up.
+         */
+        private void runParallel()
+            throws Exception
+        {
+            int threads = Math.min(classes.length, Runtime.getRuntime().availableProcessors());
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1), new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r)
+                {
+                    return new SelfTestThread(r, "BC-FIPS self-test " + count.incrementAndGet());
+                }
+            });
+
+            try
+            {
+                List<Future<?>> results = new ArrayList<Future<?>>(classes.length);
+                for (final String cls : classes)
+                {
+                    results.add(executor.submit(new Runnable()
+                    {
+                        public void run()
+                        {
+                            if (!isErrorStatus())
+                            {
+                                loadClass(cls);
+                            }
+                        }
+                    }));
+                }
+
+                Throwable failure = null;
+                for (Future<?> result : results)
+                {
+                    try
+                    {
+                        result.get();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        if (failure == null)
+                        {
+                            failure = e.getCause();
+                        }
+                    }
+                }
+
+                if (failure instanceof Exception)
+                {
+                    throw (Exception)failure;
+                }
+                if (failure instanceof Error)
+                {
+                    throw (Error)failure;
+                }
+            }
+            finally
+            {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static class SelfTestThread
+        extends Thread
+    {
+        SelfTestThread(Runnable task, String name)
+        {
+            super(task, name);
+
+            setDaemon(true);
+        }
     }
 
     static String getMarker(final Class sourceClass, final String markerName)
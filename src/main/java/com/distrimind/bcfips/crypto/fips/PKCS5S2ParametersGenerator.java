@@ -1,12 +1,18 @@
 package com.distrimind.bcfips.crypto.fips;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import com.distrimind.bcfips.crypto.Parameters;
 import com.distrimind.bcfips.crypto.internal.CipherParameters;
 import com.distrimind.bcfips.crypto.internal.Mac;
 import com.distrimind.bcfips.crypto.internal.PBEParametersGenerator;
+import com.distrimind.bcfips.crypto.internal.macs.HMac;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameterImpl;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithIV;
 import com.distrimind.bcfips.util.Arrays;
+import com.distrimind.bcfips.util.Memoable;
+import com.distrimind.bcfips.util.Pack;
 
 /**
  * Generator for PBE derived keys and ivs as defined by PKCS 5 V2.0 Scheme 2.
@@ -21,19 +27,48 @@ class PKCS5S2ParametersGenerator<T extends Parameters>
 {
     private Mac hMac;
     private byte[] state;
+    private final boolean parallel;
+
+    // snapshot of hMac keyed with the current password, if the HMac supports it.
+    private Memoable keyedState;
 
     public PKCS5S2ParametersGenerator(T parameters, Mac hMac)
+    {
+        this(parameters, hMac, false);
+    }
+
+    /**
+     * Create a generator, optionally calculating the blocks of the derived key in parallel.
+     *
+     * @param parameters the parameters the generator is for.
+     * @param hMac the PRF to use.
+     * @param parallel true if the blocks of output should be calculated concurrently on the common fork/join pool.
+     */
+    public PKCS5S2ParametersGenerator(T parameters, Mac hMac, boolean parallel)
     {
         super(parameters);
 
         this.hMac = hMac;
         this.state = new byte[hMac.getMacSize()];
+        this.parallel = parallel;
+    }
+
+    public void init(
+        byte[]  password,
+        byte[]  salt,
+        int     iterationCount)
+    {
+        super.init(password, salt, iterationCount);
+
+        this.keyedState = null;
     }
 
-    private void F(
+    private static void F(
+        Mac     hMac,
         byte[]  S,
         int     c,
         byte[]  iBuf,
+        byte[]  state,
         byte[]  out,
         int     outOff)
     {
@@ -64,35 +99,95 @@ class PKCS5S2ParametersGenerator<T extends Parameters>
         }
     }
 
+    private void initMac()
+    {
+        if (keyedState != null)
+        {
+            // the ipad/opad calculations for this password have already been done.
+            ((Memoable)hMac).reset(keyedState);
+            return;
+        }
+
+        hMac.init(new KeyParameterImpl(password));
+
+        if (isMemoable(hMac))
+        {
+            keyedState = ((Memoable)hMac).copy();
+        }
+    }
+
+    private static boolean isMemoable(Mac hMac)
+    {
+        return hMac instanceof HMac && ((HMac)hMac).getUnderlyingDigest() instanceof Memoable;
+    }
+
     private byte[] generateDerivedKey(
         int dkLen)
     {
         int     hLen = hMac.getMacSize();
         int     l = (dkLen + hLen - 1) / hLen;
-        byte[]  iBuf = new byte[4];
         byte[]  outBytes = new byte[l * hLen];
-        int     outPos = 0;
-
-        CipherParameters param = new KeyParameterImpl(password);
 
-        hMac.init(param);
+        initMac();
 
-        for (int i = 1; i <= l; i++)
+        if (parallel && l > 1 && keyedState != null)
+        {
+            generateBlocksInParallel(l, hLen, outBytes);
+        }
+        else
         {
-            // Increment the value in 'iBuf'
-            int pos = 3;
-            while (++iBuf[pos] == 0)
+            byte[]  iBuf = new byte[4];
+            int     outPos = 0;
+
+            for (int i = 1; i <= l; i++)
             {
-                --pos;
-            }
+                // Increment the value in 'iBuf'
+                int pos = 3;
+                while (++iBuf[pos] == 0)
+                {
+                    --pos;
+                }
 
-            F(salt, iterationCount, iBuf, outBytes, outPos);
-            outPos += hLen;
+                F(hMac, salt, iterationCount, iBuf, state, outBytes, outPos);
+                outPos += hLen;
+            }
         }
 
         return outBytes;
     }
 
+    private void generateBlocksInParallel(int l, int hLen, byte[] outBytes)
+    {
+        if (iterationCount == 0)
+        {
+            throw new IllegalArgumentException("iteration count must be at least 1.");
+        }
+
+        // blocks 2..l each get a copy of the keyed HMac and run on the pool, block 1 runs here.
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[l - 1];
+        for (int i = 2; i <= l; i++)
+        {
+            final Mac blockMac = (Mac)keyedState.copy();
+            final byte[] iBuf = Pack.intToBigEndian(i);
+            final int outPos = (i - 1) * hLen;
+
+            tasks[i - 2] = ForkJoinPool.commonPool().submit(new Runnable()
+            {
+                public void run()
+                {
+                    F(blockMac, salt, iterationCount, iBuf, new byte[hLen], outBytes, outPos);
+                }
+            });
+        }
+
+        F(hMac, salt, iterationCount, Pack.intToBigEndian(1), state, outBytes, 0);
+
+        for (int i = 0; i != tasks.length; i++)
+        {
+            tasks[i].join();
+        }
+    }
+
     /**
      * Generate a key parameter derived from the password, salt, and iteration
      * count we are currently initialised with.
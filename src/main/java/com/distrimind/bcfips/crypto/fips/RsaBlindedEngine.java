@@ -10,6 +10,7 @@ import com.distrimind.bcfips.crypto.internal.AsymmetricBlockCipher;
 import com.distrimind.bcfips.crypto.internal.CipherParameters;
 import com.distrimind.bcfips.crypto.internal.DataLengthException;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithRandom;
+import com.distrimind.bcfips.crypto.internal.params.RsaBlindingFactors;
 import com.distrimind.bcfips.crypto.internal.params.RsaKeyParameters;
 import com.distrimind.bcfips.crypto.internal.params.RsaPrivateCrtKeyParameters;
 import com.distrimind.bcfips.util.BigIntegers;
@@ -114,13 +115,12 @@ class RsaBlindedEngine
             if (e != null)   // can't do blinding without a public exponent
             {
                 BigInteger m = k.getModulus();
-                BigInteger r = BigIntegers.createRandomInRange(ONE, m.subtract(ONE), random);
+                BigInteger[] blinding = getBlindingPair(k.getBlindingFactors(), m, e, random);
 
-                BigInteger blindedInput = r.modPow(e, m).multiply(input).mod(m);
+                BigInteger blindedInput = blinding[0].multiply(input).mod(m);
                 BigInteger blindedResult = core.processBlock(blindedInput);
 
-                BigInteger rInv = r.modInverse(m);
-                result = blindedResult.multiply(rInv).mod(m);
+                result = blindedResult.multiply(blinding[1]).mod(m);
                 // defence against Arjen Lenstra’s CRT attack
                 if (!input.equals(result.modPow(e, m)))
                 {
@@ -139,4 +139,23 @@ class RsaBlindedEngine
 
         return core.convertOutput(result);
     }
+
+    /**
+     * Return a blinding pair (r^e mod m, r^-1 mod m) from the key's blinding state, generating a fresh r from
+     * random when the state asks for one.
+     */
+    private static BigInteger[] getBlindingPair(RsaBlindingFactors factors, BigInteger m, BigInteger e, SecureRandom random)
+    {
+        BigInteger[] blinding = factors.next(m);
+        if (blinding == null)
+        {
+            BigInteger r = BigIntegers.createRandomInRange(ONE, m.subtract(ONE), random);
+
+            blinding = new BigInteger[] { r.modPow(e, m), r.modInverse(m) };
+
+            factors.reset(blinding, m);
+        }
+
+        return blinding;
+    }
 }
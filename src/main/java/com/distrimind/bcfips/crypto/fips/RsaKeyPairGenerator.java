@@ -1,6 +1,13 @@
 package com.distrimind.bcfips.crypto.fips;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import com.distrimind.bcfips.crypto.internal.AsymmetricCipherKeyPair;
 import com.distrimind.bcfips.crypto.internal.AsymmetricCipherKeyPairGenerator;
@@ -19,8 +26,25 @@ class RsaKeyPairGenerator
 {
     private static final BigInteger ONE = BigInteger.valueOf(1);
 
+    private final boolean parallel;
+
     private RsaKeyGenerationParameters param;
 
+    RsaKeyPairGenerator()
+    {
+        this(false);
+    }
+
+    /**
+     * Create a generator, optionally searching for primes concurrently on the common fork/join pool.
+     *
+     * @param parallel true if prime candidates should be tested in parallel.
+     */
+    RsaKeyPairGenerator(boolean parallel)
+    {
+        this.parallel = parallel && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
     public void init(
         KeyGenerationParameters param)
     {
@@ -62,14 +86,33 @@ class RsaKeyPairGenerator
 
             e = param.getPublicExponent();
 
-            p = chooseRandomPrime(pbitlength, e, squaredBound);
+            BigInteger nextQ = null;
+            if (parallel)
+            {
+                BigInteger[] primes = chooseRandomPrimes(new int[] { pbitlength, qbitlength }, e, squaredBound);
+
+                p = primes[0];
+                nextQ = primes[1];
+            }
+            else
+            {
+                p = chooseRandomPrime(pbitlength, e, squaredBound);
+            }
 
             //
             // generate a modulus of the required length
             //
             for (; ; )
             {
-                q = chooseRandomPrime(qbitlength, e, squaredBound);
+                if (nextQ != null)
+                {
+                    q = nextQ;
+                    nextQ = null;
+                }
+                else
+                {
+                    q = chooseRandomPrime(qbitlength, e, squaredBound);
+                }
 
                 // p and q should not be too close together (or equal!)
                 BigInteger diff = q.subtract(p).abs();
@@ -160,36 +203,165 @@ class RsaKeyPairGenerator
      */
     private BigInteger chooseRandomPrime(int bitlength, BigInteger e, BigInteger sqrdBound)
     {
+        if (parallel)
+        {
+            return chooseRandomPrimes(new int[] { bitlength }, e, sqrdBound)[0];
+        }
+
         int iterations = getNumberOfIterations(bitlength, this.param.getCertainty());
 
         for (int i = 0; i != 5 * bitlength; i++)
         {
-            BigInteger p = new BigInteger(bitlength, 1, param.getRandom());
+            BigInteger p = testCandidate(bitlength, e, sqrdBound, iterations);
 
-            if (p.mod(e).equals(ONE))
+            if (p != null)
             {
-                continue;
+                return p;
             }
+        }
+
+        throw new IllegalStateException("unable to generate prime number for RSA key");
+    }
+
+    /**
+     * Choose a random prime value for each of the passed in bit lengths, testing candidates concurrently
+     * on the common fork/join pool. The number of candidates tried for each prime is bounded as for chooseRandomPrime().
+     *
+     * @param bitlengths the bit-lengths of the returned primes.
+     * @param e          the RSA public exponent
+     * @return an array of primes p, with (p-1) relatively prime to e, in the order of bitlengths.
+     */
+    private BigInteger[] chooseRandomPrimes(final int[] bitlengths, final BigInteger e, final BigInteger sqrdBound)
+    {
+        final BigInteger[] primes = new BigInteger[bitlengths.length];
+        final int[] iterations = new int[bitlengths.length];
+        final AtomicIntegerArray candidates = new AtomicIntegerArray(bitlengths.length);
+
+        for (int i = 0; i != bitlengths.length; i++)
+        {
+            iterations[i] = getNumberOfIterations(bitlengths[i], this.param.getCertainty());
+            candidates.set(i, 5 * bitlengths[i]);
+        }
 
-            if (p.multiply(p).compareTo(sqrdBound) < 0)
+        List<Callable<Void>> searches = new ArrayList<Callable<Void>>();
+        for (int w = 0; w != ForkJoinPool.getCommonPoolParallelism(); w++)
+        {
+            searches.add(new Callable<Void>()
             {
-                continue;
+                public Void call()
+                {
+                    int slot;
+                    while ((slot = nextSlot(primes)) >= 0 && candidates.getAndDecrement(slot) > 0)
+                    {
+                        BigInteger p = testCandidate(bitlengths[slot], e, sqrdBound, iterations[slot]);
+
+                        if (p != null)
+                        {
+                            addPrime(primes, bitlengths, bitlengths[slot], p);
+                        }
+                    }
+
+                    return null;
+                }
+            });
+        }
+
+        try
+        {
+            for (Future<Void> search : ForkJoinPool.commonPool().invokeAll(searches))
+            {
+                search.get();
             }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while generating prime number for RSA key");
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("unable to generate prime number for RSA key: " + cause.getMessage(), cause);
+        }
+
+        if (nextSlot(primes) >= 0)
+        {
+            throw new IllegalStateException("unable to generate prime number for RSA key");
+        }
 
-            if (!isProbablePrime(p, iterations))
+        return primes;
+    }
+
+    private static int nextSlot(BigInteger[] primes)
+    {
+        synchronized (primes)
+        {
+            for (int i = 0; i != primes.length; i++)
             {
-                continue;
+                if (primes[i] == null)
+                {
+                    return i;
+                }
             }
 
-            if (!e.gcd(p.subtract(ONE)).equals(ONE))
+            return -1;
+        }
+    }
+
+    private static void addPrime(BigInteger[] primes, int[] bitlengths, int bitlength, BigInteger p)
+    {
+        synchronized (primes)
+        {
+            // a prime found for a slot filled in the meantime can go to any other slot of the same length.
+            for (int i = 0; i != primes.length; i++)
             {
-                continue;
+                if (primes[i] == null && bitlengths[i] == bitlength)
+                {
+                    primes[i] = p;
+                    return;
+                }
             }
+        }
+    }
+
+    /**
+     * Generate a random candidate and subject it to the FIPS 186-4 B.3.3 checks.
+     *
+     * @return the candidate if it is a suitable prime, null otherwise.
+     */
+    private BigInteger testCandidate(int bitlength, BigInteger e, BigInteger sqrdBound, int iterations)
+    {
+        BigInteger p = new BigInteger(bitlength, 1, param.getRandom());
 
-            return p;
+        if (p.mod(e).equals(ONE))
+        {
+            return null;
         }
 
-        throw new IllegalStateException("unable to generate prime number for RSA key");
+        if (p.multiply(p).compareTo(sqrdBound) < 0)
+        {
+            return null;
+        }
+
+        if (!isProbablePrime(p, iterations))
+        {
+            return null;
+        }
+
+        if (!e.gcd(p.subtract(ONE)).equals(ONE))
+        {
+            return null;
+        }
+
+        return p;
     }
 
     private boolean isProbablePrime(BigInteger x, int iterations)
@@ -39,8 +39,8 @@ class SHA3Digest
 
     public int doFinal(byte[] out, int outOff)
     {
-        absorb(new byte[]{ 0x02 }, 0, 2);
-        
+        absorbBits(0x02, 2);
+
         return super.doFinal(out,  outOff);
     }
 
@@ -59,8 +59,7 @@ class SHA3Digest
 
         if (finalBits >= 8)
         {
-            oneByte[0] = (byte)finalInput;
-            absorb(oneByte, 0, 8);
+            absorb((byte)finalInput);
             finalBits -= 8;
             finalInput >>>= 8;
         }
@@ -52,7 +52,7 @@ class SHAKEDigest
     {
         if (!squeezing)
         {
-            absorb(new byte[]{0x0F}, 0, 4);
+            absorbBits(0x0F, 4);
         }
 
         squeeze(out, outOff, ((long)outLen) * 8);
@@ -83,16 +83,14 @@ class SHAKEDigest
 
         if (finalBits >= 8)
         {
-            oneByte[0] = (byte)finalInput;
-            absorb(oneByte, 0, 8);
+            absorb((byte)finalInput);
             finalBits -= 8;
             finalInput >>>= 8;
         }
 
         if (finalBits > 0)
         {
-            oneByte[0] = (byte)finalInput;
-            absorb(oneByte, 0, finalBits);
+            absorbBits(finalInput, finalBits);
         }
 
         squeeze(out, outOff, ((long)outLen) * 8);
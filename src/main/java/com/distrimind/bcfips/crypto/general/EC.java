@@ -1,5 +1,6 @@
 package com.distrimind.bcfips.crypto.general;
 
+import java.math.BigInteger;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.SecureRandom;
@@ -17,6 +18,7 @@ import com.distrimind.bcfips.crypto.asymmetric.ECDomainParameters;
 import com.distrimind.bcfips.crypto.asymmetric.NamedECDomainParameters;
 import com.distrimind.bcfips.crypto.fips.FipsEC;
 import com.distrimind.bcfips.crypto.fips.FipsSHS;
+import com.distrimind.bcfips.crypto.fips.FipsStatus;
 import com.distrimind.bcfips.crypto.internal.Digest;
 import com.distrimind.bcfips.crypto.internal.params.EcDomainParameters;
 import com.distrimind.bcfips.crypto.internal.params.EcNamedDomainParameters;
@@ -230,6 +232,65 @@ public final class EC
         }
     }
 
+    /**
+     * Batch verifier for EC DSA signatures. Each signature is presented as the public key, the digest of the
+     * message calculated using the digest the signature was generated with, and the r and s values. Every
+     * signature gets the same result it would get from an individual verifier, with the modular and field
+     * inversions shared between the signatures in the batch that use the same domain parameters.
+     */
+    public static final class DSABatchVerifier
+    {
+        /**
+         * Base constructor.
+         */
+        public DSABatchVerifier()
+        {
+            FipsStatus.isReady();
+            Utils.approveModeCheck(DSA.getAlgorithm());
+
+            checkEnabled();
+        }
+
+        /**
+         * Verify a batch of signatures.
+         *
+         * @param keys the public keys to verify the signatures with.
+         * @param digests the message digests the signatures were generated for.
+         * @param r the r values of the signatures.
+         * @param s the s values of the signatures.
+         * @return an array of verification results, in the order the signatures were passed in.
+         */
+        public boolean[] verify(AsymmetricECPublicKey[] keys, byte[][] digests, BigInteger[] r, BigInteger[] s)
+        {
+            int count = keys.length;
+            if (digests.length != count || r.length != count || s.length != count)
+            {
+                throw new IllegalArgumentException("batch arrays must be the same length");
+            }
+
+            Utils.approveModeCheck(DSA.getAlgorithm());
+
+            EcDsaSigner ecdsaSigner = new EcDsaSigner();
+            EcPublicKeyParameters[] publicKeyParameters = new EcPublicKeyParameters[count];
+
+            ECDomainParameters lastDomainParameters = null;
+            EcDomainParameters lastParams = null;
+            for (int i = 0; i != count; i++)
+            {
+                ECDomainParameters domainParameters = keys[i].getDomainParameters();
+                if (domainParameters != lastDomainParameters)
+                {
+                    lastDomainParameters = domainParameters;
+                    lastParams = getDomainParams(domainParameters);
+                }
+
+                publicKeyParameters[i] = new EcPublicKeyParameters(keys[i].getW(), lastParams);
+            }
+
+            return ecdsaSigner.verifySignatures(publicKeyParameters, digests, r, s);
+        }
+    }
+
     private static void checkEnabled()
     {
         if (Properties.isOverrideSet("com.distrimind.bcfips.ec.disable"))
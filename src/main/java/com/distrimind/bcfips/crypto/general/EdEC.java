@@ -3,6 +3,8 @@ package com.distrimind.bcfips.crypto.general;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.distrimind.bcfips.crypto.Agreement;
 import com.distrimind.bcfips.crypto.AgreementFactory;
@@ -326,6 +328,127 @@ public final class EdEC
         }
     }
 
+    /**
+     * Batch verifier for Ed25519 signatures. Signatures are added to the batch and then checked together
+     * using a single multi-scalar multiplication, with each signature checked individually only if the
+     * batch as a whole fails.
+     * <p>
+     * <b>Note</b>: signatures are checked with the cofactored verification equation 8.S.B == 8.R + 8.k.A, the
+     * verifiers created by {@link EdDSAOperatorFactory} use the cofactorless equation. The two agree for
+     * signatures produced by an honest signer, but a signature whose R or public key has a small order component
+     * may be accepted by one and rejected by the other. Where the same answer is required whether or not a
+     * signature is batched, {@link #verifyCofactored(AsymmetricEdDSAPublicKey, byte[], byte[])} should be used
+     * to check signatures one at a time.
+     * </p>
+     */
+    public static final class Ed25519BatchVerifier
+    {
+        private final SecureRandom random;
+        private final List<byte[]> signatures = new ArrayList<byte[]>();
+        private final List<byte[]> publicKeys = new ArrayList<byte[]>();
+        private final List<byte[]> messages = new ArrayList<byte[]>();
+
+        /**
+         * Base constructor.
+         *
+         * @param random the source of randomness for the coefficients used to combine the signatures in a batch.
+         */
+        public Ed25519BatchVerifier(SecureRandom random)
+        {
+            FipsStatus.isReady();
+            Utils.approveModeCheck(Algorithm.Ed25519);
+
+            this.random = random;
+        }
+
+        /**
+         * Add a signature to the batch.
+         *
+         * @param key the public key to verify the signature with.
+         * @param message the message the signature is for.
+         * @param signature the signature.
+         */
+        public void addSignature(AsymmetricEdDSAPublicKey key, byte[] message, byte[] signature)
+        {
+            if (!key.getAlgorithm().equals(Algorithm.Ed25519))
+            {
+                throw new IllegalArgumentException("batch verification only available for Ed25519 keys");
+            }
+
+            publicKeys.add(key.getPublicData());
+            messages.add(Arrays.clone(message));
+            signatures.add(Arrays.clone(signature));
+        }
+
+        /**
+         * Verify a single signature immediately, using the same cofactored equation as the batch. The result is
+         * the one the signature would get if it was added to a batch.
+         *
+         * @param key the public key to verify the signature with.
+         * @param message the message the signature is for.
+         * @param signature the signature.
+         * @return true if the signature is valid, false otherwise.
+         */
+        public boolean verifyCofactored(AsymmetricEdDSAPublicKey key, byte[] message, byte[] signature)
+        {
+            Utils.approveModeCheck(Algorithm.Ed25519);
+
+            if (!key.getAlgorithm().equals(Algorithm.Ed25519))
+            {
+                throw new IllegalArgumentException("cofactored verification only available for Ed25519 keys");
+            }
+
+            if (signature.length != com.distrimind.bcfips.math.ec.rfc8032.Ed25519.SIGNATURE_SIZE)
+            {
+                return false;
+            }
+
+            return createEd25519().verifyCofactored(signature, 0, key.getPublicData(), 0, message, 0, message.length);
+        }
+
+        /**
+         * Return the number of signatures waiting in the batch.
+         *
+         * @return the current batch size.
+         */
+        public int size()
+        {
+            return signatures.size();
+        }
+
+        /**
+         * Verify the signatures in the batch, and then clear it.
+         *
+         * @return an array of verification results, in the order the signatures were added.
+         */
+        public boolean[] verify()
+        {
+            Utils.approveModeCheck(Algorithm.Ed25519);
+
+            int count = signatures.size();
+            boolean[] results = createEd25519().verifyCofactoredBatch(signatures.toArray(new byte[count][]),
+                publicKeys.toArray(new byte[count][]), messages.toArray(new byte[count][]), random);
+
+            signatures.clear();
+            publicKeys.clear();
+            messages.clear();
+
+            return results;
+        }
+
+        private static Ed25519 createEd25519()
+        {
+            return new Ed25519()
+            {
+                @Override
+                protected Digest createDigest()
+                {
+                    return Register.createDigest(FipsSHS.Algorithm.SHA512);
+                }
+            };
+        }
+    }
+
     /**
      * Factory for Agreement operators based on Edwards Curve Diffie-Hellman.
      */
@@ -48,6 +48,7 @@ import com.distrimind.bcfips.crypto.internal.encodings.OAEPEncoding;
 import com.distrimind.bcfips.crypto.internal.encodings.PKCS1Encoding;
 import com.distrimind.bcfips.crypto.internal.io.SignerOutputStream;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithRandom;
+import com.distrimind.bcfips.crypto.internal.params.RsaBlindingFactors;
 import com.distrimind.bcfips.crypto.internal.params.RsaKeyParameters;
 import com.distrimind.bcfips.crypto.internal.params.RsaPrivateCrtKeyParameters;
 import com.distrimind.bcfips.crypto.internal.signers.BaseRsaDigestSigner;
@@ -1212,7 +1213,8 @@ public final class RSA
                 }
                 else
                 {
-                    return new RsaPrivateCrtKeyParameters(k.getModulus(), k.getPublicExponent(), k.getPrivateExponent(), k.getP(), k.getQ(), k.getDP(), k.getDQ(), k.getQInv());
+                    return new RsaPrivateCrtKeyParameters(k.getModulus(), k.getPublicExponent(), k.getPrivateExponent(), k.getP(), k.getQ(), k.getDP(), k.getDQ(), k.getQInv(),
+                        RsaBlindingFactors.forKey(k));
                 }
             }
         });
@@ -0,0 +1,26 @@
+package com.distrimind.bcfips.crypto.internal;
+
+/**
+ * Block cipher engines that can process several consecutive blocks in one call, allowing the
+ * work on independent blocks to be interleaved.
+ */
+public interface MultiBlockCipher
+    extends BlockCipher
+{
+    /**
+     * Process blockCount consecutive blocks of input from the array in and write them to
+     * the out array.
+     *
+     * @param in the array containing the input data.
+     * @param inOff offset into the in array the data starts at.
+     * @param blockCount the number of blocks to process.
+     * @param out the array the output data will be copied into.
+     * @param outOff the offset into the out array the output will start at.
+     * @exception DataLengthException if there isn't enough data in in, or
+     * space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     * @return the number of bytes processed and produced.
+     */
+    int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException;
+}
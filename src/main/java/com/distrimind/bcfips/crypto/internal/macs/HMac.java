@@ -12,6 +12,7 @@ import com.distrimind.bcfips.crypto.internal.Mac;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameter;
 import com.distrimind.bcfips.util.Integers;
 import com.distrimind.bcfips.util.Memoable;
+import com.distrimind.bcfips.util.MemoableResetException;
 
 /**
  * HMAC implementation based on RFC2104
@@ -19,7 +20,7 @@ import com.distrimind.bcfips.util.Memoable;
  * H(K XOR opad, H(K XOR ipad, text))
  */
 public class HMac
-    implements Mac
+    implements Mac, Memoable
 {
     private final static byte IPAD = (byte)0x36;
     private final static byte OPAD = (byte)0x5C;
@@ -224,6 +225,40 @@ public class HMac
         digest.update(inputPad, 0, inputPad.length);
     }
 
+    /**
+     * Produce a copy of this HMac, including its key and any data processed so far. The underlying
+     * digest must support Memoable.
+     *
+     * @return a copy of this HMac.
+     */
+    public Memoable copy()
+    {
+        HMac copy = new HMac((Digest)((Memoable)digest).copy(), blockLength);
+
+        copy.reset(this);
+
+        return copy;
+    }
+
+    public void reset(Memoable other)
+    {
+        HMac h = (HMac)other;
+
+        if (h.blockLength != blockLength || h.digestSize != digestSize)
+        {
+            throw new MemoableResetException("incompatible HMac passed to reset");
+        }
+
+        ((Memoable)digest).reset((Memoable)h.digest);
+
+        System.arraycopy(h.inputPad, 0, inputPad, 0, inputPad.length);
+        System.arraycopy(h.outputBuf, 0, outputBuf, 0, outputBuf.length);
+
+        // the pad states are only ever read once created, but keep them private to each instance.
+        this.ipadState = (h.ipadState != null) ? h.ipadState.copy() : null;
+        this.opadState = (h.opadState != null) ? h.opadState.copy() : null;
+    }
+
     private static void xorPad(byte[] pad, int len, byte n)
     {
         for (int i = 0; i < len; ++i)
@@ -230,7 +230,7 @@ public class CCMBlockCipher
         iv[0] = (byte)((q - 1) & 0x7);
         System.arraycopy(nonce, 0, iv, 1, nonce.length);
 
-        BlockCipher ctrCipher = new SICBlockCipher(cipher);
+        SICBlockCipher ctrCipher = new SICBlockCipher(cipher);
         ctrCipher.init(forEncryption, new ParametersWithIV(keyParam, iv));
 
         int outputLen;
@@ -251,12 +251,10 @@ public class CCMBlockCipher
 
             ctrCipher.processBlock(macBlock, 0, encMac, 0);   // S0
 
-            while (inIndex < (inOff + inLen - blockSize))                 // S1...
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            int blocksLen = inLen > 0 ? ((inLen - 1) / blockSize) * blockSize : 0;   // S1...
+            ctrCipher.processBytes(in, inIndex, blocksLen, output, outIndex);
+            outIndex += blocksLen;
+            inIndex += blocksLen;
 
             byte[] block = new byte[blockSize];
 
@@ -289,12 +287,10 @@ public class CCMBlockCipher
                 macBlock[i] = 0;
             }
 
-            while (inIndex < (inOff + outputLen - blockSize))
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            int blocksLen = outputLen > 0 ? ((outputLen - 1) / blockSize) * blockSize : 0;
+            ctrCipher.processBytes(in, inIndex, blocksLen, output, outIndex);
+            outIndex += blocksLen;
+            inIndex += blocksLen;
 
             byte[] block = new byte[blockSize];
 
@@ -7,12 +7,14 @@ import com.distrimind.bcfips.crypto.internal.BlockCipher;
 import com.distrimind.bcfips.crypto.internal.CipherParameters;
 import com.distrimind.bcfips.crypto.internal.DataLengthException;
 import com.distrimind.bcfips.crypto.internal.InvalidCipherTextException;
+import com.distrimind.bcfips.crypto.internal.MultiBlockCipher;
 import com.distrimind.bcfips.crypto.internal.OutputLengthException;
+import com.distrimind.bcfips.crypto.internal.modes.gcm.CLMulGCMMultiplier;
 import com.distrimind.bcfips.crypto.internal.modes.gcm.GCMExponentiator;
+import com.distrimind.bcfips.crypto.internal.modes.gcm.GCMMultiBlockMultiplier;
 import com.distrimind.bcfips.crypto.internal.modes.gcm.GCMMultiplier;
 import com.distrimind.bcfips.crypto.internal.modes.gcm.GCMUtil;
 import com.distrimind.bcfips.crypto.internal.modes.gcm.Tables1kGCMExponentiator;
-import com.distrimind.bcfips.crypto.internal.modes.gcm.Tables8kGCMMultiplier;
 import com.distrimind.bcfips.crypto.internal.params.AEADParameters;
 import com.distrimind.bcfips.crypto.internal.params.KeyParameter;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithIV;
@@ -27,6 +29,8 @@ public class GCMBlockCipher
     implements AEADBlockCipher
 {
     private static final int BLOCK_SIZE = 16;
+    // number of counter blocks handed to a MultiBlockCipher at a time.
+    private static final int MULTI_BLOCK_COUNT = 16;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
@@ -46,6 +50,8 @@ public class GCMBlockCipher
     private byte[]      macBlock;
     private byte[]      S, S_at, S_atPre;
     private byte[]      counter;
+    private byte[]      counters;
+    private byte[]      keyStream;
     private int         blocksRemaining;
     private int         bufOff;
     private long        totalLength;
@@ -70,7 +76,7 @@ public class GCMBlockCipher
         if (m == null)
         {
             // TODO Consider a static property specifying default multiplier
-            m = new Tables8kGCMMultiplier();
+            m = new CLMulGCMMultiplier();
         }
 
         this.cipher = c;
@@ -235,17 +241,24 @@ public class GCMBlockCipher
 
     public void processAADBytes(byte[] in, int inOff, int len)
     {
-        for (int i = 0; i < len; ++i)
+        while (atBlockPos > 0 && len > 0)
         {
-            atBlock[atBlockPos] = in[inOff + i];
-            if (++atBlockPos == BLOCK_SIZE)
-            {
-                // Hash each block as it fills
-                gHASHBlock(S_at, atBlock);
-                atBlockPos = 0;
-                atLength += BLOCK_SIZE;
-            }
+            processAADByte(in[inOff++]);
+            --len;
+        }
+
+        // whole blocks go straight from the input to the hash
+        int blocks = len / BLOCK_SIZE;
+        if (blocks > 0)
+        {
+            gHASHBlocks(S_at, in, inOff, blocks);
+            atLength += (long)blocks * BLOCK_SIZE;
+            inOff += blocks * BLOCK_SIZE;
+            len -= blocks * BLOCK_SIZE;
         }
+
+        System.arraycopy(in, inOff, atBlock, atBlockPos, len);
+        atBlockPos += len;
     }
 
     private void initCipher()
@@ -290,19 +303,104 @@ public class GCMBlockCipher
         }
         int resultLen = 0;
 
-        for (int i = 0; i < len; ++i)
+        // output may run ahead of the input by the bytes already buffered, so an in-place
+        // call that does not leave room for them must work from a copy of the input.
+        if (in == out && outOff + bufOff > inOff && outOff < inOff + len)
+        {
+            in = Arrays.copyOfRange(in, inOff, inOff + len);
+            inOff = 0;
+        }
+
+        int available = bufBlock.length - bufOff;
+        if (len < available)
+        {
+            System.arraycopy(in, inOff, bufBlock, bufOff, len);
+            bufOff += len;
+            return 0;
+        }
+
+        if (forEncryption)
+        {
+            if (bufOff > 0)
+            {
+                System.arraycopy(in, inOff, bufBlock, bufOff, available);
+                inOff += available;
+                len -= available;
+                outputBlock(out, outOff);
+                resultLen = BLOCK_SIZE;
+            }
+        }
+        else
         {
-            bufBlock[bufOff] = in[inOff + i];
-            if (++bufOff == bufBlock.length)
+            // bufBlock also holds back the last macSize bytes seen, which may turn out to be the tag.
+            if (bufOff >= BLOCK_SIZE)
             {
-                outputBlock(out, outOff + resultLen);
+                System.arraycopy(in, inOff, bufBlock, bufOff, available);
+                inOff += available;
+                len -= available;
+                outputBlock(out, outOff);
+                resultLen = BLOCK_SIZE;
+
+                available = bufBlock.length - bufOff;
+                if (len < available)
+                {
+                    System.arraycopy(in, inOff, bufBlock, bufOff, len);
+                    bufOff += len;
+                    return resultLen;
+                }
+            }
+
+            if (bufOff > 0)
+            {
+                // complete the pending block, keeping the held back bytes queued behind it.
+                int fill = BLOCK_SIZE - bufOff;
+                System.arraycopy(in, inOff, bufBlock, bufOff, fill);
+                inOff += fill;
+                len -= fill;
+                checkOutputBlocks(out, outOff + resultLen, 1);
+                gCTRBlocks(bufBlock, 0, 1, out, outOff + resultLen);
                 resultLen += BLOCK_SIZE;
+                bufOff = 0;
             }
+
+            // the last macSize bytes of the input are not processed yet.
+            len -= macSize;
+        }
+
+        // process whole blocks directly from the input.
+        int blocks = len / BLOCK_SIZE;
+        if (blocks > 0)
+        {
+            checkOutputBlocks(out, outOff + resultLen, blocks);
+            gCTRBlocks(in, inOff, blocks, out, outOff + resultLen);
+            inOff += blocks * BLOCK_SIZE;
+            len -= blocks * BLOCK_SIZE;
+            resultLen += blocks * BLOCK_SIZE;
+        }
+
+        if (!forEncryption)
+        {
+            len += macSize;
         }
 
+        System.arraycopy(in, inOff, bufBlock, bufOff, len);
+        bufOff += len;
+
         return resultLen;
     }
 
+    private void checkOutputBlocks(byte[] output, int offset, int blocks)
+    {
+        if (output.length < (offset + blocks * BLOCK_SIZE))
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+    }
+
     private void outputBlock(byte[] output, int offset)
     {
         if (output.length < (offset + BLOCK_SIZE))
@@ -481,6 +579,58 @@ public class GCMBlockCipher
         }
     }
 
+    private void gCTRBlocks(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        if (!forEncryption)
+        {
+            // hash the cipher text first, the output may overwrite it.
+            gHASHBlocks(S, in, inOff, blocks);
+        }
+
+        if (counters == null)
+        {
+            counters = new byte[MULTI_BLOCK_COUNT * BLOCK_SIZE];
+            keyStream = new byte[MULTI_BLOCK_COUNT * BLOCK_SIZE];
+        }
+
+        int remaining = blocks, pos = 0;
+        while (remaining > 0)
+        {
+            int count = (cipher instanceof MultiBlockCipher) ? Math.min(remaining, MULTI_BLOCK_COUNT) : 1;
+
+            for (int i = 0; i < count; ++i)
+            {
+                incrementCounter();
+                System.arraycopy(counter, 0, counters, i * BLOCK_SIZE, BLOCK_SIZE);
+            }
+
+            if (count > 1)
+            {
+                ((MultiBlockCipher)cipher).processBlocks(counters, 0, count, keyStream, 0);
+            }
+            else
+            {
+                cipher.processBlock(counters, 0, keyStream, 0);
+            }
+
+            int len = count * BLOCK_SIZE;
+            for (int i = 0; i < len; ++i)
+            {
+                out[outOff + pos + i] = (byte)(keyStream[i] ^ in[inOff + pos + i]);
+            }
+
+            pos += len;
+            remaining -= count;
+        }
+
+        if (forEncryption)
+        {
+            gHASHBlocks(S, out, outOff, blocks);
+        }
+
+        totalLength += (long)blocks * BLOCK_SIZE;
+    }
+
     private void gCTRBlock(byte[] block, byte[] out, int outOff)
     {
         byte[] tmp = getNextCounterBlock();
@@ -520,6 +670,22 @@ public class GCMBlockCipher
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int blocks)
+    {
+        if (multiplier instanceof GCMMultiBlockMultiplier)
+        {
+            ((GCMMultiBlockMultiplier)multiplier).multiplyBlocksH(Y, b, off, blocks);
+        }
+        else
+        {
+            for (int i = 0; i < blocks; ++i)
+            {
+                GCMUtil.xor(Y, b, off + i * BLOCK_SIZE, BLOCK_SIZE);
+                multiplier.multiplyH(Y);
+            }
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
@@ -527,6 +693,21 @@ public class GCMBlockCipher
     }
 
     private byte[] getNextCounterBlock()
+    {
+        byte[] tmp = new byte[BLOCK_SIZE];
+        nextCounterBlock(tmp);
+        return tmp;
+    }
+
+    private void nextCounterBlock(byte[] tmp)
+    {
+        incrementCounter();
+
+        // TODO Sure would be nice if ciphers could operate on int[]
+        cipher.processBlock(counter, 0, tmp, 0);
+    }
+
+    private void incrementCounter()
     {
         if (blocksRemaining == 0)
         {
@@ -539,10 +720,5 @@ public class GCMBlockCipher
         c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
         c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
         c += counter[12] & 0xFF; counter[12] = (byte)c;
-
-        byte[] tmp = new byte[BLOCK_SIZE];
-        // TODO Sure would be nice if ciphers could operate on int[]
-        cipher.processBlock(counter, 0, tmp, 0);
-        return tmp;
     }
 }
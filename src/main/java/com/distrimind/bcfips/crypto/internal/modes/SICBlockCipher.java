@@ -6,6 +6,7 @@ package com.distrimind.bcfips.crypto.internal.modes;
 import com.distrimind.bcfips.crypto.internal.BlockCipher;
 import com.distrimind.bcfips.crypto.internal.CipherParameters;
 import com.distrimind.bcfips.crypto.internal.DataLengthException;
+import com.distrimind.bcfips.crypto.internal.MultiBlockCipher;
 import com.distrimind.bcfips.crypto.internal.SkippingStreamCipher;
 import com.distrimind.bcfips.crypto.internal.StreamBlockCipher;
 import com.distrimind.bcfips.crypto.internal.params.ParametersWithIV;
@@ -20,6 +21,9 @@ public class SICBlockCipher
     extends StreamBlockCipher
     implements SkippingStreamCipher
 {
+    // number of counter blocks handed to a MultiBlockCipher at a time.
+    private static final int MULTI_BLOCK_COUNT = 16;
+
     private final BlockCipher     cipher;
     private final int             blockSize;
 
@@ -27,6 +31,8 @@ public class SICBlockCipher
     private byte[]          counter;
     private byte[]          counterOut;
     private int             byteCount;
+    private byte[]          counters;
+    private byte[]          keyStream;
 
     /**
      * Basic constructor.
@@ -94,6 +100,86 @@ public class SICBlockCipher
         return blockSize;
     }
 
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if (!(cipher instanceof MultiBlockCipher) || len < blockSize)
+        {
+            return super.processBytes(in, inOff, len, out, outOff);
+        }
+
+        if (outOff + len > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        if (inOff + len > in.length)
+        {
+            throw new DataLengthException("input buffer too small");
+        }
+
+        int inEnd = inOff + len;
+
+        // finish off any partly used block of key stream first.
+        while (byteCount != 0 && inOff < inEnd)
+        {
+            out[outOff++] = calculateByte(in[inOff++]);
+        }
+
+        if (counters == null)
+        {
+            counters = new byte[MULTI_BLOCK_COUNT * blockSize];
+            keyStream = new byte[MULTI_BLOCK_COUNT * blockSize];
+        }
+
+        while (inEnd - inOff >= blockSize)
+        {
+            int blocks = Math.min((inEnd - inOff) / blockSize, MULTI_BLOCK_COUNT);
+
+            IllegalStateException counterException = null;
+            for (int i = 0; i < blocks; ++i)
+            {
+                System.arraycopy(counter, 0, counters, i * blockSize, blockSize);
+
+                incrementCounter();
+
+                try
+                {
+                    checkCounter();
+                }
+                catch (IllegalStateException e)
+                {
+                    // the blocks up to and including this one are still valid output.
+                    counterException = e;
+                    blocks = i + 1;
+                    break;
+                }
+            }
+
+            ((MultiBlockCipher)cipher).processBlocks(counters, 0, blocks, keyStream, 0);
+
+            int count = blocks * blockSize;
+            for (int i = 0; i < count; ++i)
+            {
+                out[outOff + i] = (byte)(keyStream[i] ^ in[inOff + i]);
+            }
+            inOff += count;
+            outOff += count;
+
+            if (counterException != null)
+            {
+                throw counterException;
+            }
+        }
+
+        while (inOff < inEnd)
+        {
+            out[outOff++] = calculateByte(in[inOff++]);
+        }
+
+        return len;
+    }
+
     protected byte calculateByte(byte in)
           throws DataLengthException, IllegalStateException
     {
@@ -0,0 +1,117 @@
+package com.distrimind.bcfips.crypto.internal.modes.gcm;
+
+import com.distrimind.bcfips.util.Arrays;
+import com.distrimind.bcfips.util.Pack;
+
+/**
+ * GCM multiplier based on 64 bit carry-less multiplication rather than lookup tables.
+ * <p>
+ * The powers H^1 to H^4 are precomputed so that runs of blocks can be absorbed four at a time using
+ * aggregated reduction: Y' = (Y ^ X_1)H^4 ^ X_2H^3 ^ X_3H^2 ^ X_4H, with only one reduction per four blocks.
+ * </p>
+ */
+public class CLMulGCMMultiplier
+    implements GCMMultiBlockMultiplier
+{
+    private static final int AGGREGATION = 4;
+
+    // per power: h0, h1, h0 ^ h1 and the bit-reversed forms of each
+    private static final int STRIDE = 6;
+
+    private byte[] H;
+    private long[] T;
+    private final long[] z = new long[4];
+    private final long[] y = new long[2];
+
+    public void init(byte[] H)
+    {
+        if (T == null)
+        {
+            T = new long[AGGREGATION * STRIDE];
+        }
+        else if (Arrays.areEqual(this.H, H))
+        {
+            return;
+        }
+
+        this.H = Arrays.clone(H);
+
+        long[] h = GCMUtil.asLongs(H);
+        long[] p = Arrays.clone(h);
+
+        // T holds H^1 .. H^AGGREGATION, in that order.
+        for (int i = 0;;)
+        {
+            int tOff = i * STRIDE;
+            T[tOff] = p[0];
+            T[tOff + 1] = p[1];
+            T[tOff + 2] = p[0] ^ p[1];
+            T[tOff + 3] = Long.reverse(p[0]);
+            T[tOff + 4] = Long.reverse(p[1]);
+            T[tOff + 5] = Long.reverse(p[0] ^ p[1]);
+
+            if (++i == AGGREGATION)
+            {
+                break;
+            }
+
+            GCMUtil.multiply(p, h);
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        long[] z = this.z;
+        z[0] = 0; z[1] = 0; z[2] = 0; z[3] = 0;
+
+        multiplyAccumulate(Pack.bigEndianToLong(x, 0), Pack.bigEndianToLong(x, 8), 0, z);
+
+        GCMUtil.reduce(z, y);
+
+        Pack.longToBigEndian(y, x, 0);
+    }
+
+    public void multiplyBlocksH(byte[] Y, byte[] x, int xOff, int blockCount)
+    {
+        long[] z = this.z;
+        long[] y = this.y;
+        Pack.bigEndianToLong(Y, 0, y);
+
+        while (blockCount >= AGGREGATION)
+        {
+            z[0] = 0; z[1] = 0; z[2] = 0; z[3] = 0;
+
+            multiplyAccumulate(y[0] ^ Pack.bigEndianToLong(x, xOff), y[1] ^ Pack.bigEndianToLong(x, xOff + 8), 3, z);
+            multiplyAccumulate(Pack.bigEndianToLong(x, xOff + 16), Pack.bigEndianToLong(x, xOff + 24), 2, z);
+            multiplyAccumulate(Pack.bigEndianToLong(x, xOff + 32), Pack.bigEndianToLong(x, xOff + 40), 1, z);
+            multiplyAccumulate(Pack.bigEndianToLong(x, xOff + 48), Pack.bigEndianToLong(x, xOff + 56), 0, z);
+
+            GCMUtil.reduce(z, y);
+
+            xOff += AGGREGATION * 16;
+            blockCount -= AGGREGATION;
+        }
+
+        while (blockCount > 0)
+        {
+            z[0] = 0; z[1] = 0; z[2] = 0; z[3] = 0;
+
+            multiplyAccumulate(y[0] ^ Pack.bigEndianToLong(x, xOff), y[1] ^ Pack.bigEndianToLong(x, xOff + 8), 0, z);
+
+            GCMUtil.reduce(z, y);
+
+            xOff += 16;
+            --blockCount;
+        }
+
+        Pack.longToBigEndian(y, Y, 0);
+    }
+
+    private void multiplyAccumulate(long x0, long x1, int power, long[] z)
+    {
+        long[] t = T;
+        int tOff = power * STRIDE;
+
+        GCMUtil.multiplyAccumulate(x0, x1, t[tOff], t[tOff + 1], t[tOff + 2], t[tOff + 3], t[tOff + 4], t[tOff + 5], z);
+    }
+}
@@ -0,0 +1,19 @@
+package com.distrimind.bcfips.crypto.internal.modes.gcm;
+
+/**
+ * A GCM multiplier that can also absorb a run of whole blocks into the hash in a single call.
+ */
+public interface GCMMultiBlockMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Absorb blockCount consecutive 16 byte blocks from x into the running hash Y, that is, for each
+     * block X_i in turn, Y = (Y ^ X_i) * H.
+     *
+     * @param Y the 16 byte running hash value, updated in place.
+     * @param x the array containing the blocks.
+     * @param xOff the offset of the first block in x.
+     * @param blockCount the number of blocks to absorb.
+     */
+    void multiplyBlocksH(byte[] Y, byte[] x, int xOff, int blockCount);
+}
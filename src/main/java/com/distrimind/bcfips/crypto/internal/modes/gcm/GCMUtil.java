@@ -56,6 +56,23 @@ public abstract class GCMUtil
         Pack.bigEndianToInt(x, 0, z);
     }
 
+    public static void asBytes(long[] x, byte[] z)
+    {
+        Pack.longToBigEndian(x, z, 0);
+    }
+
+    public static long[] asLongs(byte[] x)
+    {
+        long[] z = new long[2];
+        Pack.bigEndianToLong(x, 0, z);
+        return z;
+    }
+
+    public static void asLongs(byte[] x, long[] z)
+    {
+        Pack.bigEndianToLong(x, 0, z);
+    }
+
     public static void multiply(byte[] x, byte[] y)
     {
         int[] t1 = GCMUtil.asInts(x);
@@ -94,6 +111,98 @@ public abstract class GCMUtil
         x[3] = r13;
     }
 
+    public static void multiply(long[] x, long[] y)
+    {
+        long[] z = new long[4];
+        multiplyAccumulate(x[0], x[1], y[0], y[1], z);
+        reduce(z, x);
+    }
+
+    /**
+     * Carry-less multiply of the field elements (x0, x1) and (y0, y1), accumulating the unreduced
+     * 256 bit product into z (xor). Several products may be accumulated before a single call to reduce().
+     */
+    public static void multiplyAccumulate(long x0, long x1, long y0, long y1, long[] z)
+    {
+        multiplyAccumulate(x0, x1, y0, y1, y0 ^ y1,
+            Long.reverse(y0), Long.reverse(y1), Long.reverse(y0 ^ y1), z);
+    }
+
+    /**
+     * As multiplyAccumulate(long, long, long, long, long[]) but with the Karatsuba and bit-reversed
+     * forms of y supplied by the caller, so they can be calculated once for a fixed y.
+     */
+    public static void multiplyAccumulate(long x0, long x1, long y0, long y1, long y01,
+        long y0r, long y1r, long y01r, long[] z)
+    {
+        /*
+         * Karatsuba over 64 bit halves. In the GCM (reflected) bit order the low 64 bits of a
+         * product come from a plain carry-less multiply of the words, and the high 64 bits come
+         * from the carry-less multiply of the bit-reversed words, reversed: rev(x) * rev(y) == rev((x * y) << 1).
+         */
+        long x01 = x0 ^ x1;
+        long x0r = Long.reverse(x0), x1r = Long.reverse(x1), x01r = Long.reverse(x01);
+
+        long h0 = Long.reverse(implMul64(x0r, y0r));
+        long h1 = implMul64(x0, y0) << 1;
+        long h2 = Long.reverse(implMul64(x1r, y1r));
+        long h3 = implMul64(x1, y1) << 1;
+        long h4 = Long.reverse(implMul64(x01r, y01r));
+        long h5 = implMul64(x01, y01) << 1;
+
+        z[0] ^= h0;
+        z[1] ^= h1 ^ h0 ^ h2 ^ h4;
+        z[2] ^= h2 ^ h1 ^ h3 ^ h5;
+        z[3] ^= h3;
+    }
+
+    /**
+     * Reduce the 256 bit value z modulo the GCM polynomial (x^128 + x^7 + x^2 + x + 1) into x.
+     */
+    public static void reduce(long[] z, long[] x)
+    {
+        long z0 = z[0], z1 = z[1], z2 = z[2], z3 = z[3];
+
+        // the lowest bit of z3 is always zero, so (z3 << 63) can be omitted
+        z1 ^= z3 ^ (z3 >>>  1) ^ (z3 >>>  2) ^ (z3 >>>  7);
+        z2 ^=                    (z3 <<  62) ^ (z3 <<  57);
+
+        z0 ^= z2 ^ (z2 >>>  1) ^ (z2 >>>  2) ^ (z2 >>>  7);
+        z1 ^=      (z2 <<  63) ^ (z2 <<  62) ^ (z2 <<  57);
+
+        x[0] = z0;
+        x[1] = z1;
+    }
+
+    /*
+     * Low 64 bits of the carry-less product of x and y. Integer multiplies of operands masked to every
+     * fourth bit cannot carry far enough to disturb the bits we keep, so this runs in constant time.
+     */
+    private static long implMul64(long x, long y)
+    {
+        long x0 = x & 0x1111111111111111L;
+        long x1 = x & 0x2222222222222222L;
+        long x2 = x & 0x4444444444444444L;
+        long x3 = x & 0x8888888888888888L;
+
+        long y0 = y & 0x1111111111111111L;
+        long y1 = y & 0x2222222222222222L;
+        long y2 = y & 0x4444444444444444L;
+        long y3 = y & 0x8888888888888888L;
+
+        long z0 = (x0 * y0) ^ (x1 * y3) ^ (x2 * y2) ^ (x3 * y1);
+        long z1 = (x0 * y1) ^ (x1 * y0) ^ (x2 * y3) ^ (x3 * y2);
+        long z2 = (x0 * y2) ^ (x1 * y1) ^ (x2 * y0) ^ (x3 * y3);
+        long z3 = (x0 * y3) ^ (x1 * y2) ^ (x2 * y1) ^ (x3 * y0);
+
+        z0 &= 0x1111111111111111L;
+        z1 &= 0x2222222222222222L;
+        z2 &= 0x4444444444444444L;
+        z3 &= 0x8888888888888888L;
+
+        return z0 | z1 | z2 | z3;
+    }
+
     public static void multiplyP(int[] x, int[] z)
     {
         int m = shiftRight(x, z) >> 8;
@@ -0,0 +1,109 @@
+package com.distrimind.bcfips.crypto.internal.params;
+
+import java.math.BigInteger;
+import java.util.WeakHashMap;
+
+/**
+ * Blinding state for a single RSA private key, shared by every engine using the key. Each pair handed out is
+ * replaced by its square, the engine setting a fresh pair every BLINDING_REFRESH operations, so a pair is never
+ * used twice.
+ */
+public final class RsaBlindingFactors
+{
+    // number of times a blinding pair is squared before a fresh one is drawn from the random source.
+    private static final int BLINDING_REFRESH = 32;
+
+    private static final Stripe[] stripes = createStripes();
+
+    private BigInteger blind;
+    private BigInteger unblind;
+    private int remaining;
+
+    /**
+     * Return the blinding state for a key, creating it on first use. The state is held for as long as the key
+     * object is reachable, lookups for different keys only contending when they fall in the same stripe.
+     *
+     * @param key the long lived key object the blinding state belongs to.
+     * @return the blinding state for key.
+     */
+    public static RsaBlindingFactors forKey(Object key)
+    {
+        Stripe stripe = stripes[key.hashCode() & (stripes.length - 1)];
+
+        synchronized (stripe)
+        {
+            RsaBlindingFactors factors = stripe.factors.get(key);
+            if (factors == null)
+            {
+                factors = new RsaBlindingFactors();
+                stripe.factors.put(key, factors);
+            }
+
+            return factors;
+        }
+    }
+
+    /**
+     * Return the next blinding pair (r^e mod m, r^-1 mod m), or null if a fresh one needs to be set.
+     *
+     * @param m the key's modulus.
+     * @return a blinding pair, or null.
+     */
+    public synchronized BigInteger[] next(BigInteger m)
+    {
+        if (remaining == 0)
+        {
+            return null;
+        }
+
+        BigInteger[] blinding = new BigInteger[] { blind, unblind };
+
+        square(m);
+        remaining--;
+
+        return blinding;
+    }
+
+    /**
+     * Start again from a freshly generated blinding pair, which the caller is about to use.
+     *
+     * @param blinding the new pair (r^e mod m, r^-1 mod m).
+     * @param m the key's modulus.
+     */
+    public synchronized void reset(BigInteger[] blinding, BigInteger m)
+    {
+        this.blind = blinding[0];
+        this.unblind = blinding[1];
+
+        square(m);
+        remaining = BLINDING_REFRESH;
+    }
+
+    private void square(BigInteger m)
+    {
+        blind = blind.multiply(blind).mod(m);
+        unblind = unblind.multiply(unblind).mod(m);
+    }
+
+    private static Stripe[] createStripes()
+    {
+        int size = 1;
+        while (size < 2 * Runtime.getRuntime().availableProcessors())
+        {
+            size <<= 1;
+        }
+
+        Stripe[] stripes = new Stripe[size];
+        for (int i = 0; i != stripes.length; i++)
+        {
+            stripes[i] = new Stripe();
+        }
+
+        return stripes;
+    }
+
+    private static class Stripe
+    {
+        private final WeakHashMap<Object, RsaBlindingFactors> factors = new WeakHashMap<Object, RsaBlindingFactors>();
+    }
+}
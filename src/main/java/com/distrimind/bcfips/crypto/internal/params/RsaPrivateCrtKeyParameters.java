@@ -15,6 +15,8 @@ public class RsaPrivateCrtKeyParameters
     private BigInteger  dQ;
     private BigInteger  qInv;
 
+    private final RsaBlindingFactors blindingFactors;
+
     /**
      * 
      */
@@ -27,9 +29,28 @@ public class RsaPrivateCrtKeyParameters
         BigInteger  dP,
         BigInteger  dQ,
         BigInteger  qInv)
+    {
+        this(modulus, publicExponent, privateExponent, p, q, dP, dQ, qInv, new RsaBlindingFactors());
+    }
+
+    /**
+     * Create parameters sharing the blinding state of the key they are taken from.
+     */
+    public RsaPrivateCrtKeyParameters(
+        BigInteger  modulus,
+        BigInteger  publicExponent,
+        BigInteger  privateExponent,
+        BigInteger  p,
+        BigInteger  q,
+        BigInteger  dP,
+        BigInteger  dQ,
+        BigInteger  qInv,
+        RsaBlindingFactors blindingFactors)
     {
         super(true, modulus, privateExponent);
 
+        this.blindingFactors = blindingFactors;
+
         this.e = publicExponent;
         this.p = p;
         this.q = q;
@@ -67,4 +88,9 @@ public class RsaPrivateCrtKeyParameters
     {
         return qInv;
     }
+
+    public RsaBlindingFactors getBlindingFactors()
+    {
+        return blindingFactors;
+    }
 }
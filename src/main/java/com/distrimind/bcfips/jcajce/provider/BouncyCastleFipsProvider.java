@@ -10,14 +10,20 @@ import java.security.Provider;
 import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.distrimind.bcfips.asn1.ASN1ObjectIdentifier;
@@ -65,6 +71,18 @@ import com.distrimind.bcfips.util.Strings;
  * as soon as new entropy bytes are returned.
  * </p>
  * <p>
+ * By default the provider shares a pool of DRBGs between threads, the size of which can be set using "POOL=n" in the
+ * DEFRND command. "LOCAL" gives each thread its own DRBG. For applications using large numbers of short lived threads,
+ * such as virtual threads, "STRIPED" can be used instead:
+ * <pre>
+ *         C:DEFRND[STRIPED];ENABLE{ALL};
+ *     </pre>
+ * in which case a fixed stripe of DRBGs, sized from the number of available processors, is shared with each thread
+ * mapped to a stripe from its thread ID without any locking once the stripe has been created. Each DRBG in the stripe
+ * is instantiated with its own nonce and personalization string. When "LOCAL" is used virtual threads are also served
+ * from a stripe rather than being given a DRBG each.
+ * </p>
+ * <p>
  * <b>Note</b>: if the provider is created by an "approved mode" thread, only FIPS approved algorithms will be available from it.
  * </p>
  */
@@ -132,6 +150,7 @@ public final class BouncyCastleFipsProvider
     private int providerDefaultSecurityStrength = 256;
     private boolean providerDefaultPredictionResistance = true;
     private boolean useThreadLocal = false;
+    private boolean useStriped = false;
     private int providerRandomPoolSize = 16;
 
     private boolean hybridSource = false;
@@ -141,6 +160,9 @@ public final class BouncyCastleFipsProvider
     private Map<String, BcService> serviceMap = new HashMap<String, BcService>();
     private Map<String, EngineCreator> creatorMap = new HashMap<String, EngineCreator>();
 
+    // immutable index of type + "." + upper case name/alias built once registration is complete, read without locking.
+    private final Map<String, BcService> serviceIndex;
+
     private final Map<ASN1ObjectIdentifier, AsymmetricKeyInfoConverter> keyInfoConverters = new HashMap<ASN1ObjectIdentifier, AsymmetricKeyInfoConverter>();
 
     /**
@@ -192,6 +214,10 @@ public final class BouncyCastleFipsProvider
         {
             providerDefaultSecureRandomProvider = new ThreadLocalSecureRandomProvider();
         }
+        else if (useStriped)
+        {
+            providerDefaultSecureRandomProvider = new StripedSecureRandomProvider();
+        }
         else
         {
             providerDefaultSecureRandomProvider = new PooledSecureRandomProvider();
@@ -287,6 +313,8 @@ public final class BouncyCastleFipsProvider
         {
             new ProvJKS().configure(this);
         }
+
+        serviceIndex = buildServiceIndex();
     }
 
     // for Java 11
@@ -329,6 +357,10 @@ public final class BouncyCastleFipsProvider
                     {
                         useThreadLocal = true;
                     }
+                    else if (rnd.equals("STRIPED"))
+                    {
+                        useStriped = true;
+                    }
                     else if (rnd.startsWith("POOL="))
                     {
                         providerRandomPoolSize = Integer.parseInt(rnd.substring(5));
@@ -504,6 +536,24 @@ public final class BouncyCastleFipsProvider
         }
     }
 
+    /**
+     * Return a snapshot of the state of the entropy pool used when the provider is configured with HYBRID.
+     * Entries are "poolDepth" and "poolCapacity" (in 32 byte blocks), "blocksGathered", "seedsTaken",
+     * "blockedWaits" (reseeds which found the pool empty), "fallbacks" (reseeds which had to call generateSeed()
+     * directly), and "lastReseedLatencyNanos" and "maxReseedLatencyNanos".
+     *
+     * @return a map of metric name to value, empty if the provider is not using the hybrid entropy source.
+     */
+    public Map<String, Long> getEntropyPoolMetrics()
+    {
+        if (entropyDaemon == null)
+        {
+            return Collections.emptyMap();
+        }
+
+        return entropyDaemon.getMetrics();
+    }
+
     void addAttribute(String key, String attributeName, String attributeValue)
     {
         String attributeKey = key + " " + attributeName;
@@ -649,10 +699,31 @@ public final class BouncyCastleFipsProvider
         put(key, name);
     }
 
-    public synchronized final Service getService(String type, String algorithm)
+    public final Service getService(String type, String algorithm)
     {
         String upperCaseAlgName = Strings.toUpperCase(algorithm);
 
+        if (serviceIndex != null)
+        {
+            BcService service = serviceIndex.get(type + "." + upperCaseAlgName);
+
+            if (service != null)
+            {
+                return service;
+            }
+
+            // only entries put() after construction can still be found, anything else is a miss.
+            if (this.get("Alg.Alias." + type + "." + upperCaseAlgName) == null && this.get(type + "." + upperCaseAlgName) == null)
+            {
+                return null;
+            }
+        }
+
+        return getUnindexedService(type, algorithm, upperCaseAlgName);
+    }
+
+    private synchronized Service getUnindexedService(String type, String algorithm, String upperCaseAlgName)
+    {
         BcService service = serviceMap.get(type + "." + upperCaseAlgName);
 
         if (service == null)
@@ -714,6 +785,99 @@ public final class BouncyCastleFipsProvider
         return bcServiceSet;
     }
 
+    /**
+     * Build the service index in a single pass over the provider's entries, rather than the pass
+     * per service a lookup of an uncached service needs.
+     */
+    private Map<String, BcService> buildServiceIndex()
+    {
+        Map<String, String> classNames = new HashMap<String, String>();
+        Map<String, List<String>> aliases = new HashMap<String, List<String>>();
+        Map<String, Map<String, String>> attributes = new HashMap<String, Map<String, String>>();
+        Map<String, String> aliasTargets = new HashMap<String, String>();
+
+        for (Map.Entry<Object, Object> entry : this.entrySet())
+        {
+            if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String))
+            {
+                continue;
+            }
+
+            String sKey = (String)entry.getKey();
+            String value = (String)entry.getValue();
+
+            if (sKey.startsWith("Alg.Alias."))
+            {
+                String alias = sKey.substring("Alg.Alias.".length());
+                int dot = alias.indexOf('.');
+                if (dot > 0)
+                {
+                    String type = alias.substring(0, dot);
+                    String key = type + "." + value;
+
+                    List<String> names = aliases.get(key);
+                    if (names == null)
+                    {
+                        names = new ArrayList<String>();
+                        aliases.put(key, names);
+                    }
+                    names.add(alias.substring(dot + 1));
+                    aliasTargets.put(type + "." + Strings.toUpperCase(alias.substring(dot + 1)), key);
+                }
+                continue;
+            }
+
+            int space = sKey.indexOf(' ');
+            if (space > 0)
+            {
+                String key = sKey.substring(0, space);
+
+                Map<String, String> attrs = attributes.get(key);
+                if (attrs == null)
+                {
+                    attrs = new HashMap<String, String>();
+                    attributes.put(key, attrs);
+                }
+                attrs.put(sKey.substring(space + 1), value);
+            }
+            else if (sKey.indexOf('.') > 0)
+            {
+                classNames.put(sKey, value);
+            }
+        }
+
+        Map<String, BcService> services = new HashMap<String, BcService>();
+        Map<String, BcService> index = new HashMap<String, BcService>();
+
+        for (Map.Entry<String, String> entry : classNames.entrySet())
+        {
+            String key = entry.getKey();
+            String className = entry.getValue();
+            int dot = key.indexOf('.');
+            Map<String, String> attrs = attributes.get(key);
+            List<String> names = aliases.get(key);
+
+            BcService service = new BcService(this, key.substring(0, dot), key.substring(dot + 1), className,
+                names != null ? names : new ArrayList<String>(), getAttributeMap(attrs != null ? attrs : new HashMap<String, String>()), creatorMap.get(className));
+
+            services.put(key, service);
+            index.put(key.substring(0, dot + 1) + Strings.toUpperCase(key.substring(dot + 1)), service);
+        }
+
+        // as with the lookup in getUnindexedService() an alias takes precedence over a name.
+        for (Map.Entry<String, String> entry : aliasTargets.entrySet())
+        {
+            BcService service = services.get(entry.getValue());
+
+            if (service != null)
+            {
+                index.put(entry.getKey(), service);
+            }
+        }
+
+        return Collections.unmodifiableMap(index);
+    }
+
     void addKeyInfoConverter(ASN1ObjectIdentifier oid, AsymmetricKeyInfoConverter keyInfoConverter)
     {
         keyInfoConverters.put(oid, keyInfoConverter);
@@ -847,17 +1011,47 @@ public final class BouncyCastleFipsProvider
 
     }
 
+    /**
+     * Background gatherer for the hybrid entropy source. Work is taken from a blocking queue so the daemon
+     * wakes as soon as there is something to do, and gathered seed material is kept in a bounded pool so
+     * reseeds can usually be satisfied without calling generateSeed() on the requesting thread.
+     * <p>
+     * The pool is topped up in the background pausing for com.distrimind.bcfips.drbg.gather_pause_secs
+     * (default 5) between each 8 byte sample, as we may not be the only consumer of the system entropy.
+     * Once a consumer is waiting, or the pool is empty, the pause is cut short and the remaining samples
+     * are gathered straight away. The pool holds com.distrimind.bcfips.drbg.entropy_pool_size (default 8)
+     * 32 byte blocks.
+     * </p>
+     */
     private static class EntropyDaemon
         implements Runnable
     {
-        private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+        private static final int SEED_BLOCK_SIZE = 32;
+        private static final long SEED_WAIT_MILLIS = 1000;
+
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<Runnable>();
+        private final BlockingQueue<byte[]> seedPool = new ArrayBlockingQueue<byte[]>(getIntProperty("com.distrimind.bcfips.drbg.entropy_pool_size", 8));
+        private final AtomicBoolean fillScheduled = new AtomicBoolean(false);
+        private final AtomicInteger waiters = new AtomicInteger(0);
+        private final Object demandLock = new Object();
+
+        private final AtomicLong blocksGathered = new AtomicLong(0);
+        private final AtomicLong seedsTaken = new AtomicLong(0);
+        private final AtomicLong blockedWaits = new AtomicLong(0);
+        private final AtomicLong fallbacks = new AtomicLong(0);
+        private final AtomicLong lastReseedLatency = new AtomicLong(0);
+        private final AtomicLong maxReseedLatency = new AtomicLong(0);
+
+        private SecureRandom baseRandom;   // only used from the daemon thread.
+
+        EntropyDaemon()
+        {
+            scheduleFill();
+        }
 
         void addTask(Runnable task)
         {
-            synchronized (tasks)
-            {
-                tasks.add(task);
-            }
+            tasks.add(task);
         }
 
         @Override
@@ -866,33 +1060,235 @@ public final class BouncyCastleFipsProvider
             while (!Thread.currentThread().isInterrupted())
             {
                 Runnable task;
-                synchronized (tasks)
+                try
+                {
+                    task = tasks.take();
+                }
+                catch (InterruptedException e)
                 {
-                    task = tasks.poll();
+                    Thread.currentThread().interrupt();
+                    break;
                 }
 
-                if (task != null)
+                try
+                {
+                    task.run();
+                }
+                catch (Throwable e)
                 {
+                    // ignore
+                }
+            }
+        }
+
+        boolean isSeedAvailable()
+        {
+            return !seedPool.isEmpty();
+        }
+
+        /**
+         * Signal that seed material is wanted now - any pause in the gatherer is cut short.
+         */
+        void requestSeed()
+        {
+            synchronized (demandLock)
+            {
+                demandLock.notifyAll();
+            }
+
+            scheduleFill();
+        }
+
+        /**
+         * Return byteLength bytes of seed material from the pool, waiting a short time for the gatherer if
+         * the pool is empty.
+         *
+         * @return the seed material, null if the gatherer could not supply it in time.
+         */
+        byte[] takeSeed(int byteLength)
+        {
+            long start = System.nanoTime();
+            byte[] seed = new byte[byteLength];
+
+            for (int off = 0; off < byteLength;)
+            {
+                byte[] block = seedPool.poll();
+                if (block == null)
+                {
+                    blockedWaits.incrementAndGet();
+                    waiters.incrementAndGet();
                     try
                     {
-                        task.run();
+                        requestSeed();
+                        block = seedPool.poll(SEED_WAIT_MILLIS, TimeUnit.MILLISECONDS);
                     }
-                    catch (Throwable e)
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally
+                    {
+                        waiters.decrementAndGet();
+                    }
+
+                    if (block == null)
                     {
-                        // ignore
+                        fallbacks.incrementAndGet();
+                        Arrays.fill(seed, (byte)0);
+                        return null;
                     }
                 }
-                else
+
+                int len = Math.min(block.length, byteLength - off);
+                System.arraycopy(block, 0, seed, off, len);
+                Arrays.fill(block, (byte)0);
+                off += len;
+            }
+
+            scheduleFill();
+
+            long latency = System.nanoTime() - start;
+            long max;
+            do
+            {
+                max = maxReseedLatency.get();
+            }
+            while (latency > max && !maxReseedLatency.compareAndSet(max, latency));
+            lastReseedLatency.set(latency);
+            seedsTaken.incrementAndGet();
+
+            return seed;
+        }
+
+        Map<String, Long> getMetrics()
+        {
+            Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+
+            metrics.put("poolDepth", Long.valueOf(seedPool.size()));
+            metrics.put("poolCapacity", Long.valueOf(seedPool.size() + seedPool.remainingCapacity()));
+            metrics.put("blocksGathered", Long.valueOf(blocksGathered.get()));
+            metrics.put("seedsTaken", Long.valueOf(seedsTaken.get()));
+            metrics.put("blockedWaits", Long.valueOf(blockedWaits.get()));
+            metrics.put("fallbacks", Long.valueOf(fallbacks.get()));
+            metrics.put("lastReseedLatencyNanos", Long.valueOf(lastReseedLatency.get()));
+            metrics.put("maxReseedLatencyNanos", Long.valueOf(maxReseedLatency.get()));
+
+            return Collections.unmodifiableMap(metrics);
+        }
+
+        private void scheduleFill()
+        {
+            if (seedPool.remainingCapacity() != 0 && !fillScheduled.getAndSet(true))
+            {
+                addTask(new PoolFiller());
+            }
+        }
+
+        private boolean isUnderDemand()
+        {
+            return waiters.get() > 0 || seedPool.isEmpty();
+        }
+
+        private static int getIntProperty(String name, int defaultValue)
+        {
+            String value = Properties.getPropertyValue(name);
+
+            if (value != null)
+            {
+                try
+                {
+                    return Math.max(1, Integer.parseInt(value));
+                }
+                catch (Exception e)
+                {
+                    // fall through to the default.
+                }
+            }
+
+            return defaultValue;
+        }
+
+        private class PoolFiller
+            implements Runnable
+        {
+            /**
+             * Pause for ms, returning early if a consumer signals demand.
+             */
+            private void pause(long ms)
+            {
+                synchronized (demandLock)
+                {
+                    if (ms > 0 && !isUnderDemand())
+                    {
+                        try
+                        {
+                            demandLock.wait(ms);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+
+            public void run()
+            {
+                long ms;
+                String pause = Properties.getPropertyValue("com.distrimind.bcfips.drbg.gather_pause_secs");
+
+                if (pause != null)
                 {
                     try
                     {
-                        Thread.sleep(5000);
+                        ms = Long.parseLong(pause) * 1000;
                     }
-                    catch (InterruptedException e)
+                    catch (Exception e)
                     {
-                        Thread.currentThread().interrupt();
+                        ms = 5000;
                     }
                 }
+                else
+                {
+                    ms = 5000;
+                }
+
+                try
+                {
+                    if (baseRandom == null)
+                    {
+                        baseRandom = getCoreSecureRandom();
+                    }
+
+                    while (seedPool.remainingCapacity() != 0 && !Thread.currentThread().isInterrupted())
+                    {
+                        byte[] block = new byte[SEED_BLOCK_SIZE];
+                        for (int i = 0; i < SEED_BLOCK_SIZE; i += 8)
+                        {
+                            // we need to be mindful that we may not be the only thread/process looking for entropy
+                            pause(ms);
+                            byte[] rn = baseRandom.generateSeed(8);
+                            System.arraycopy(rn, 0, block, i, rn.length);
+                        }
+
+                        if (!seedPool.offer(block))
+                        {
+                            Arrays.fill(block, (byte)0);
+                            break;
+                        }
+                        blocksGathered.incrementAndGet();
+                    }
+                }
+                finally
+                {
+                    fillScheduled.set(false);
+                }
+
+                // a seed may have been taken after we last checked.
+                if (seedPool.remainingCapacity() != 0 && !Thread.currentThread().isInterrupted())
+                {
+                    scheduleFill();
+                }
             }
         }
     }
@@ -900,9 +1296,9 @@ public final class BouncyCastleFipsProvider
     private static class HybridEntropySource
         implements EntropySource
     {
-        private final AtomicBoolean seedAvailable = new AtomicBoolean(false);
         private final AtomicInteger samples = new AtomicInteger(0);
 
+        private final EntropyDaemon entropyDaemon;
         private final FipsSecureRandom drbg;
         private final SignallingEntropySource entropySource;
         private final int bytesRequired;
@@ -911,9 +1307,10 @@ public final class BouncyCastleFipsProvider
         {
             SecureRandom baseRandom = getCoreSecureRandom();
 
+            this.entropyDaemon = entropyDaemon;
             bytesRequired = (bitsRequired + 7) / 8;
             // remember for the seed generator we need the correct security strength for SHA-512
-            entropySource = new SignallingEntropySource(entropyDaemon, seedAvailable, baseRandom, 256);
+            entropySource = new SignallingEntropySource(entropyDaemon, baseRandom, 256);
             drbg = FipsDRBG.SHA512.fromEntropySource(new EntropySourceProvider()
                 {
                     public EntropySource get(final int bitsRequired)
@@ -939,14 +1336,14 @@ public final class BouncyCastleFipsProvider
             // after 20 samples we'll start to check if there is new seed material.
             if (samples.getAndIncrement() > 20)
             {
-                if (seedAvailable.getAndSet(false))
+                if (entropyDaemon.isSeedAvailable())
                 {
                     samples.set(0);
                     drbg.reseed();
                 }
                 else
                 {
-                    entropySource.schedule();
+                    entropyDaemon.requestSeed();
                 }
             }
 
@@ -965,16 +1362,12 @@ public final class BouncyCastleFipsProvider
             implements EntropySource
         {
             private final EntropyDaemon entropyDaemon;
-            private final AtomicBoolean seedAvailable;
             private final SecureRandom baseRandom;
             private final int byteLength;
-            private final AtomicReference entropy = new AtomicReference();
-            private final AtomicBoolean scheduled = new AtomicBoolean(false);
 
-            SignallingEntropySource(EntropyDaemon entropyDaemon, AtomicBoolean seedAvailable, SecureRandom baseRandom, int bitsRequired)
+            SignallingEntropySource(EntropyDaemon entropyDaemon, SecureRandom baseRandom, int bitsRequired)
             {
                 this.entropyDaemon = entropyDaemon;
-                this.seedAvailable = seedAvailable;
                 this.baseRandom = baseRandom;
                 this.byteLength = (bitsRequired + 7) / 8;
             }
@@ -986,106 +1379,21 @@ public final class BouncyCastleFipsProvider
 
             public byte[] getEntropy()
             {
-                byte[] seed = (byte[])entropy.getAndSet(null);
+                byte[] seed = entropyDaemon.takeSeed(byteLength);
 
-                if (seed == null || seed.length != byteLength)
+                if (seed == null)
                 {
                     seed = baseRandom.generateSeed(byteLength);
                 }
-                else
-                {
-                    scheduled.set(false);
-                }
-
-                schedule();
 
                 return seed;
             }
 
-            void schedule()
-            {
-                if (!scheduled.getAndSet(true))
-                {
-                    entropyDaemon.addTask(new EntropyGatherer(byteLength, baseRandom, seedAvailable, entropy));
-                }
-            }
-
             public int entropySize()
             {
                 return byteLength * 8;
             }
         }
-
-        private class EntropyGatherer
-            implements Runnable
-        {
-            private final int numBytes;
-            private final SecureRandom baseRandom;
-            private final AtomicBoolean seedAvailable;
-            private final AtomicReference<byte[]> entropy;
-
-            EntropyGatherer(int numBytes, SecureRandom baseRandom, AtomicBoolean seedAvailable, AtomicReference<byte[]> entropy)
-            {
-                this.numBytes = numBytes;
-                this.baseRandom = baseRandom;
-                this.seedAvailable = seedAvailable;
-                this.entropy = entropy;
-            }
-
-            private void sleep(long ms)
-            {
-                try
-                {
-                    Thread.sleep(ms);
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                }
-            }
-
-            public void run()
-            {
-                long ms;
-                String pause = Properties.getPropertyValue("com.distrimind.bcfips.drbg.gather_pause_secs");
-
-                if (pause != null)
-                {
-                    try
-                    {
-                        ms = Long.parseLong(pause) * 1000;
-                    }
-                    catch (Exception e)
-                    {
-                        ms = 5000;
-                    }
-                }
-                else
-                {
-                    ms = 5000;
-                }
-
-                byte[] seed = new byte[numBytes];
-                for (int i = 0; i < numBytes / 8; i++)
-                {
-                    // we need to be mindful that we may not be the only thread/process looking for entropy
-                    sleep(ms);
-                    byte[] rn = baseRandom.generateSeed(8);
-                    System.arraycopy(rn, 0, seed, i * 8, rn.length);
-                }
-
-                int extra = numBytes - ((numBytes / 8) * 8);
-                if (extra != 0)
-                {
-                    sleep(ms);
-                    byte[] rn = baseRandom.generateSeed(extra);
-                    System.arraycopy(rn, 0, seed, seed.length - rn.length, rn.length);
-                }
-
-                entropy.set(seed);
-                seedAvailable.set(true);
-            }
-        }
     }
 
     private class PooledSecureRandomProvider
@@ -1133,9 +1441,16 @@ public final class BouncyCastleFipsProvider
         implements SecureRandomProvider
     {
         final ThreadLocal<FipsSecureRandom> defaultRandoms = new ThreadLocal<FipsSecureRandom>();
+        final StripedSecureRandomProvider virtualThreadRandoms = new StripedSecureRandomProvider();
 
         public SecureRandom get ()
         {
+            // a virtual thread is usually too short lived to make the instantiation of its own DRBG worthwhile.
+            if (isVirtualThread(Thread.currentThread()))
+            {
+                return virtualThreadRandoms.get();
+            }
+
             // See SP 800-90A R1 8.6.7 for setting of Nonce - at least 1/2 security strength bits
             if (defaultRandoms.get() == null)
             {
@@ -1152,4 +1467,102 @@ public final class BouncyCastleFipsProvider
             return defaultRandoms.get();
         }
     }
+
+    /**
+     * A fixed, power of 2 sized, stripe of DRBGs with threads mapped to a DRBG from their thread ID. Once a DRBG
+     * has been created no locking is required to find it, and creation only locks the slot being filled.
+     */
+    private class StripedSecureRandomProvider
+        implements SecureRandomProvider
+    {
+        private final AtomicReference<SecureRandom>[] stripe;
+        private final int mask;
+
+        @SuppressWarnings("unchecked")
+        StripedSecureRandomProvider()
+        {
+            int size = 1;
+            while (size < 2 * Runtime.getRuntime().availableProcessors())
+            {
+                size <<= 1;
+            }
+
+            this.stripe = new AtomicReference[size];
+            this.mask = size - 1;
+
+            for (int i = 0; i != stripe.length; i++)
+            {
+                stripe[i] = new AtomicReference<SecureRandom>();
+            }
+        }
+
+        public SecureRandom get()
+        {
+            long id = Thread.currentThread().getId();
+            int h = (int)(id ^ (id >>> 32)) * 0x9E3779B9;     // spread sequential thread IDs
+            int rngIndex = (h ^ (h >>> 16)) & mask;
+
+            SecureRandom random = stripe[rngIndex].get();
+            if (random == null)
+            {
+                synchronized (stripe[rngIndex])
+                {
+                    if (stripe[rngIndex].get() == null)
+                    {
+                        // See SP 800-90A R1 8.6.7 for setting of Nonce - at least 1/2 security strength bits
+                        EntropySourceProvider entropySourceProvider = getEntropySourceProvider();
+
+                        EntropySource seedSource = entropySourceProvider.get((providerDefaultSecurityStrength / 2) + 1);
+
+                        // we set providerDefault here as we end up recursing due to personalization string
+                        stripe[rngIndex].compareAndSet(null, providerDefaultRandomBuilder
+                            .fromEntropySource(entropySourceProvider)
+                            .setPersonalizationString(generatePersonalizationString(rngIndex))
+                            .build(seedSource.getEntropy(), providerDefaultPredictionResistance, Strings.toByteArray("Bouncy Castle FIPS Provider")));
+                    }
+                }
+
+                random = stripe[rngIndex].get();
+            }
+
+            return random;
+        }
+    }
+
+    private static final Method isVirtualMethod = findIsVirtualMethod();
+
+    private static Method findIsVirtualMethod()
+    {
+        return AccessController.doPrivileged(new PrivilegedAction<Method>()
+        {
+            public Method run()
+            {
+                try
+                {
+                    return Thread.class.getMethod("isVirtual");
+                }
+                catch (Exception e)
+                {
+                    return null;      // virtual threads not supported by this JVM.
+                }
+            }
+        });
+    }
+
+    private static boolean isVirtualThread(Thread thread)
+    {
+        if (isVirtualMethod == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            return ((Boolean)isVirtualMethod.invoke(thread)).booleanValue();
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
 }
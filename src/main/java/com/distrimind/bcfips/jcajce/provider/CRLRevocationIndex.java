@@ -0,0 +1,334 @@
+package com.distrimind.bcfips.jcajce.provider;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import javax.security.auth.x500.X500Principal;
+
+import com.distrimind.bcfips.asn1.ASN1Encoding;
+import com.distrimind.bcfips.asn1.x500.X500Name;
+import com.distrimind.bcfips.asn1.x509.Time;
+import com.distrimind.bcfips.util.Arrays;
+
+/**
+ * A compact index of the revoked serial numbers in a CRL which has been read and verified by a
+ * {@link StreamingCRLParser}.
+ * <p>
+ * Only the serial numbers, and for indirect CRLs the certificate issuer of each entry, are retained.
+ * Serial numbers are held as their DER contents octets in a single shared array, so the memory used
+ * is the size of the serial numbers plus a small fixed number of ints for each entry.
+ * </p>
+ */
+public final class CRLRevocationIndex
+{
+    private final X500Name issuer;
+    private final Time thisUpdate;
+    private final Time nextUpdate;
+    private final String sigAlgOID;
+    private final boolean isIndirect;
+
+    private final int count;
+    private final byte[] serials;
+    private final int[] offsets;
+    private final int[] hashes;
+    private final int[] table;
+    private final int mask;
+
+    private final int[] issuerIndexes;
+    private final X500Name[] issuers;
+
+    private CRLRevocationIndex(Builder builder, boolean isIndirect)
+    {
+        this.issuer = builder.issuer;
+        this.thisUpdate = builder.thisUpdate;
+        this.nextUpdate = builder.nextUpdate;
+        this.sigAlgOID = builder.sigAlgOID;
+        this.isIndirect = isIndirect;
+
+        this.count = builder.count;
+        this.serials = builder.serials;
+        this.offsets = builder.offsets;
+
+        int capacity = 2;
+        while (capacity < count * 2)
+        {
+            capacity <<= 1;
+        }
+
+        this.hashes = new int[count];
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i != count; i++)
+        {
+            int hash = hash(serials, offsets[i], offsets[i + 1] - offsets[i]);
+            int slot = hash & mask;
+
+            // linear probing with no removals - entries sharing a serial number stay in CRL order along the probe chain.
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            hashes[i] = hash;
+            table[slot] = i + 1;
+        }
+
+        if (isIndirect && builder.issuerIndexes != null)
+        {
+            this.issuerIndexes = builder.issuerIndexes;
+            this.issuers = builder.issuers;
+        }
+        else
+        {
+            this.issuerIndexes = null;
+            this.issuers = null;
+        }
+    }
+
+    public X500Principal getIssuerX500Principal()
+    {
+        try
+        {
+            return new X500Principal(issuer.getEncoded(ASN1Encoding.DER));
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("can't encode issuer DN");
+        }
+    }
+
+    public Date getThisUpdate()
+    {
+        return thisUpdate.getDate();
+    }
+
+    public Date getNextUpdate()
+    {
+        if (nextUpdate != null)
+        {
+            return nextUpdate.getDate();
+        }
+
+        return null;
+    }
+
+    public String getSigAlgOID()
+    {
+        return sigAlgOID;
+    }
+
+    /**
+     * Return true if the CRL was marked as indirect by its issuing distribution point extension.
+     *
+     * @return true if the CRL is indirect, false otherwise.
+     */
+    public boolean isIndirectCRL()
+    {
+        return isIndirect;
+    }
+
+    /**
+     * Return the number of revoked certificate entries in the CRL.
+     *
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Return true if the passed in serial number is revoked for a certificate issued by the CRL issuer.
+     *
+     * @param serialNumber the serial number of interest.
+     * @return true if the serial number is on the CRL, false otherwise.
+     */
+    public boolean isRevoked(BigInteger serialNumber)
+    {
+        return isRevoked(serialNumber, issuer);
+    }
+
+    /**
+     * Return true if the passed in certificate is on the CRL.
+     *
+     * @param cert the certificate to check for.
+     * @return true if the certificate is on the CRL, false otherwise.
+     */
+    public boolean isRevoked(X509Certificate cert)
+    {
+        return isRevoked(cert.getSerialNumber(), X500Name.getInstance(cert.getIssuerX500Principal().getEncoded()));
+    }
+
+    private boolean isRevoked(BigInteger serialNumber, X500Name certIssuer)
+    {
+        byte[] serial = serialNumber.toByteArray();
+        int hash = hash(serial, 0, serial.length);
+
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int pos = table[slot] - 1;
+
+            if (hashes[pos] == hash && matches(pos, serial))
+            {
+                X500Name entryIssuer = (issuers != null) ? issuers[issuerIndexes[pos]] : null;
+
+                if (entryIssuer == null)
+                {
+                    entryIssuer = issuer;
+                }
+
+                if (entryIssuer.equals(certIssuer))
+                {
+                    return true;
+                }
+
+                if (issuers == null)
+                {
+                    return false;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matches(int pos, byte[] serial)
+    {
+        int off = offsets[pos];
+
+        if (offsets[pos + 1] - off != serial.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i != serial.length; i++)
+        {
+            if (serials[off + i] != serial[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int hash(byte[] buf, int off, int len)
+    {
+        int h = 1;
+
+        for (int i = 0; i != len; i++)
+        {
+            h = 31 * h + buf[off + i];
+        }
+
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Accumulator for the index as the revoked certificate entries are read.
+     */
+    static class Builder
+    {
+        private X500Name issuer;
+        private Time thisUpdate;
+        private Time nextUpdate;
+        private String sigAlgOID;
+
+        private int count;
+        private byte[] serials = new byte[1024];
+        private int[] offsets = new int[64];
+
+        private X500Name[] issuers = new X500Name[] { null };
+        private int[] issuerIndexes;
+        private int currentIssuer;
+
+        void setIssuer(X500Name issuer)
+        {
+            this.issuer = issuer;
+        }
+
+        void setThisUpdate(Time thisUpdate)
+        {
+            this.thisUpdate = thisUpdate;
+        }
+
+        void setNextUpdate(Time nextUpdate)
+        {
+            this.nextUpdate = nextUpdate;
+        }
+
+        void setSigAlgOID(String sigAlgOID)
+        {
+            this.sigAlgOID = sigAlgOID;
+        }
+
+        /**
+         * Note the certificate issuer for this and subsequent entries, as given by a certificateIssuer entry extension.
+         */
+        void setCertificateIssuer(X500Name certificateIssuer)
+        {
+            if (certificateIssuer.equals(issuers[currentIssuer]))
+            {
+                return;
+            }
+
+            for (int i = 1; i != issuers.length; i++)
+            {
+                if (certificateIssuer.equals(issuers[i]))
+                {
+                    currentIssuer = i;
+                    return;
+                }
+            }
+
+            X500Name[] tmp = new X500Name[issuers.length + 1];
+            System.arraycopy(issuers, 0, tmp, 0, issuers.length);
+            tmp[issuers.length] = certificateIssuer;
+
+            issuers = tmp;
+            currentIssuer = issuers.length - 1;
+        }
+
+        void addEntry(byte[] serial)
+        {
+            if (count + 2 > offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+
+            int off = offsets[count];
+            if (off + serial.length > serials.length)
+            {
+                serials = Arrays.copyOf(serials, Math.max(serials.length * 2, off + serial.length));
+            }
+
+            System.arraycopy(serial, 0, serials, off, serial.length);
+
+            if (currentIssuer != 0 && issuerIndexes == null)
+            {
+                issuerIndexes = new int[offsets.length];
+            }
+            if (issuerIndexes != null)
+            {
+                if (issuerIndexes.length < offsets.length)
+                {
+                    issuerIndexes = Arrays.copyOf(issuerIndexes, offsets.length);
+                }
+                issuerIndexes[count] = currentIssuer;
+            }
+
+            offsets[++count] = off + serial.length;
+        }
+
+        CRLRevocationIndex build(boolean isIndirect)
+        {
+            serials = Arrays.copyOf(serials, offsets[count]);
+            offsets = Arrays.copyOf(offsets, count + 1);
+
+            return new CRLRevocationIndex(this, isIndirect);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.distrimind.bcfips.jcajce.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import com.distrimind.bcfips.asn1.ASN1InputStream;
+import com.distrimind.bcfips.asn1.ASN1Primitive;
+import com.distrimind.bcfips.asn1.BERTags;
+import com.distrimind.bcfips.util.Arrays;
+
+/**
+ * Index of the top level fields in the DER encoding of an X.509 certificate.
+ * <p>
+ * Only the tags and lengths of the certificate, the TBSCertificate and the fields directly beneath
+ * them are recorded, noting where each field starts and ends so it can be decoded from the original
+ * encoding when it is first required.
+ * </p>
+ * <p>
+ * The original encoding is returned as the certificate's encoding, so the whole of it is also checked to be
+ * what a DER re-encoding of the parsed certificate would produce: minimal definite lengths, low tag number
+ * forms, primitive strings, BOOLEAN, INTEGER, BIT STRING, OBJECT IDENTIFIER and GeneralizedTime values in
+ * their DER form, and SET elements in DER order. Anything else is rejected, the caller is expected to fall
+ * back to a full parse for these.
+ * </p>
+ */
+final class CertificateEncodingIndex
+{
+    static final int TBS_CERTIFICATE = 0;
+    static final int SERIAL_NUMBER = 1;
+    static final int TBS_SIGNATURE = 2;
+    static final int ISSUER = 3;
+    static final int VALIDITY = 4;
+    static final int SUBJECT = 5;
+    static final int SUBJECT_PUBLIC_KEY_INFO = 6;
+    static final int EXTENSIONS = 7;
+    static final int SIGNATURE_ALGORITHM = 8;
+    static final int SIGNATURE = 9;
+
+    private static final int FIELD_COUNT = 10;
+    private static final int MAX_DEPTH = 64;
+
+    private final byte[] encoding;
+    private final int[] starts = new int[FIELD_COUNT];     // start of the tag, -1 if the field is absent.
+    private final int[] ends = new int[FIELD_COUNT];
+    private final int version;
+
+    private int pos;
+
+    /**
+     * Index a certificate encoding - the array is retained, not copied.
+     *
+     * @param encoding the encoding of the certificate.
+     * @throws IOException if the encoding is not a definite length certificate structure.
+     */
+    CertificateEncodingIndex(byte[] encoding)
+        throws IOException
+    {
+        this.encoding = encoding;
+
+        int certEnd = readHeader(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        if (certEnd != encoding.length)
+        {
+            throw new IOException("extra data found after certificate");
+        }
+
+        int tbsStart = pos;
+        int tbsEnd = readHeader(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        mark(TBS_CERTIFICATE, tbsStart, tbsEnd);
+
+        if (peekTag() == (BERTags.CONSTRUCTED | BERTags.TAGGED))
+        {
+            int versionEnd = readHeader(BERTags.CONSTRUCTED | BERTags.TAGGED);
+            int integerEnd = readHeader(BERTags.INTEGER);
+            if (integerEnd != versionEnd || versionEnd - pos != 1 || encoding[pos] < 0 || encoding[pos] > 2)
+            {
+                throw new IOException("version number not recognised");
+            }
+            version = encoding[pos] + 1;
+            pos = versionEnd;
+        }
+        else
+        {
+            version = 1;
+        }
+
+        readField(SERIAL_NUMBER, BERTags.INTEGER);
+        readField(TBS_SIGNATURE, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        readField(ISSUER, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        readField(VALIDITY, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        readField(SUBJECT, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        readField(SUBJECT_PUBLIC_KEY_INFO, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+
+        starts[EXTENSIONS] = -1;
+        if (pos != tbsEnd && version == 1)
+        {
+            throw new IOException("version 1 certificate contains extra data");
+        }
+
+        while (pos < tbsEnd)
+        {
+            int tag = peekTag();
+            int tagNo = tag & 0x1f;
+
+            if ((tag & BERTags.TAGGED) == 0 || tagNo < 1 || tagNo > 3 || starts[EXTENSIONS] >= 0)
+            {
+                throw new IOException("unknown object in TBSCertificate");
+            }
+
+            if (tagNo == 3)
+            {
+                if (version == 2)
+                {
+                    throw new IOException("version 2 certificate cannot contain extensions");
+                }
+                readField(EXTENSIONS, BERTags.CONSTRUCTED | BERTags.TAGGED | 3);
+            }
+            else
+            {
+                // unique identifiers are IMPLICIT BIT STRINGs, only decoded from the full structure.
+                pos = readHeader(BERTags.TAGGED | tagNo);
+            }
+        }
+        if (pos != tbsEnd)
+        {
+            throw new IOException("TBSCertificate length mismatch");
+        }
+
+        readField(SIGNATURE_ALGORITHM, BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+        readField(SIGNATURE, BERTags.BIT_STRING);
+
+        if (pos != certEnd)
+        {
+            throw new IOException("unknown object in certificate");
+        }
+
+        pos = 0;
+        checkDER(encoding.length, 0, false);
+    }
+
+    /**
+     * Return the certificate encoding - the internal array is returned, not a copy.
+     */
+    byte[] getEncoding()
+    {
+        return encoding;
+    }
+
+    int getVersion()
+    {
+        return version;
+    }
+
+    boolean hasField(int field)
+    {
+        return starts[field] >= 0;
+    }
+
+    /**
+     * Return a copy of the encoding of the passed in field, including its tag and length.
+     */
+    byte[] getField(int field)
+    {
+        return Arrays.copyOfRange(encoding, starts[field], ends[field]);
+    }
+
+    /**
+     * Decode the passed in field from the certificate encoding.
+     */
+    ASN1Primitive decodeField(int field)
+        throws IOException
+    {
+        int length = ends[field] - starts[field];
+
+        return new ASN1InputStream(new ByteArrayInputStream(encoding, starts[field], length), length).readObject();
+    }
+
+    boolean fieldEquals(int field, CertificateEncodingIndex other, int otherField)
+    {
+        int len = ends[field] - starts[field];
+
+        if (len != other.ends[otherField] - other.starts[otherField])
+        {
+            return false;
+        }
+
+        for (int i = 0; i != len; i++)
+        {
+            if (encoding[starts[field] + i] != other.encoding[other.starts[otherField] + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Check the elements from pos up to end are in DER form, leaving pos at end.
+     */
+    private void checkDER(int end, int depth, boolean isSet)
+        throws IOException
+    {
+        if (depth > MAX_DEPTH)
+        {
+            throw new IOException("certificate encoding nested too deeply");
+        }
+
+        int prevStart = -1, prevEnd = -1;
+        while (pos < end)
+        {
+            int start = pos;
+            int tag = peekTag();
+            int contentsEnd = readHeader(tag);
+
+            if ((tag & 0x1f) == 0x1f)
+            {
+                throw new IOException("high tag number form found in certificate encoding");
+            }
+            if (contentsEnd > end)
+            {
+                throw new IOException("certificate encoding truncated");
+            }
+
+            if ((tag & BERTags.CONSTRUCTED) != 0)
+            {
+                // only SEQUENCE and SET are constructed in DER, other universal types must be primitive.
+                if ((tag & (BERTags.APPLICATION | BERTags.TAGGED)) == 0
+                    && tag != (BERTags.SEQUENCE | BERTags.CONSTRUCTED) && tag != (BERTags.SET | BERTags.CONSTRUCTED))
+                {
+                    throw new IOException("constructed string found in certificate encoding");
+                }
+
+                checkDER(contentsEnd, depth + 1, tag == (BERTags.SET | BERTags.CONSTRUCTED));
+            }
+            else
+            {
+                checkPrimitive(tag, pos, contentsEnd);
+                pos = contentsEnd;
+            }
+
+            if (isSet)
+            {
+                if (prevStart >= 0 && !lessThanOrEqual(prevStart, prevEnd, start, contentsEnd))
+                {
+                    throw new IOException("SET elements not in DER order in certificate encoding");
+                }
+                prevStart = start;
+                prevEnd = contentsEnd;
+            }
+        }
+
+        if (pos != end)
+        {
+            throw new IOException("certificate encoding length mismatch");
+        }
+    }
+
+    private void checkPrimitive(int tag, int start, int end)
+        throws IOException
+    {
+        int length = end - start;
+
+        switch (tag)
+        {
+        case BERTags.BOOLEAN:
+            if (length != 1 || (encoding[start] != 0 && encoding[start] != (byte)0xff))
+            {
+                throw new IOException("BOOLEAN not in DER form in certificate encoding");
+            }
+            break;
+        case BERTags.INTEGER:
+        case BERTags.ENUMERATED:
+            if (length == 0 || (length > 1 && (encoding[start] == 0 || encoding[start] == (byte)0xff)
+                && ((encoding[start] ^ encoding[start + 1]) & 0x80) == 0))
+            {
+                throw new IOException("INTEGER not in DER form in certificate encoding");
+            }
+            break;
+        case BERTags.BIT_STRING:
+        {
+            int padBits = length == 0 ? -1 : encoding[start];
+            if (padBits < 0 || padBits > 7 || (length == 1 && padBits != 0)
+                || (length > 1 && (encoding[end - 1] & ((1 << padBits) - 1)) != 0))
+            {
+                throw new IOException("BIT STRING not in DER form in certificate encoding");
+            }
+            break;
+        }
+        case BERTags.OBJECT_IDENTIFIER:
+            if (length == 0 || encoding[end - 1] < 0)
+            {
+                throw new IOException("OBJECT IDENTIFIER truncated in certificate encoding");
+            }
+            for (int i = start; i < end; i++)
+            {
+                // a sub-identifier cannot start with a 0x80 byte.
+                if (encoding[i] == (byte)0x80 && (i == start || encoding[i - 1] >= 0))
+                {
+                    throw new IOException("OBJECT IDENTIFIER not in DER form in certificate encoding");
+                }
+            }
+            break;
+        case BERTags.GENERALIZED_TIME:
+            // DER requires YYYYMMDDHHMMSSZ with no fractional seconds.
+            if (length != 15 || encoding[end - 1] != 'Z')
+            {
+                throw new IOException("GeneralizedTime not in DER form in certificate encoding");
+            }
+            break;
+        case BERTags.BMP_STRING:
+            if ((length & 1) != 0)
+            {
+                throw new IOException("BMPString has odd length in certificate encoding");
+            }
+            break;
+        case BERTags.NULL:
+            if (length != 0)
+            {
+                throw new IOException("NULL has contents in certificate encoding");
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * DER ordering of two SET elements, as used by ASN1Set.
+     */
+    private boolean lessThanOrEqual(int aStart, int aEnd, int bStart, int bEnd)
+    {
+        // constructed bit not part of tag value.
+        int a0 = encoding[aStart] & ~BERTags.CONSTRUCTED & 0xff;
+        int b0 = encoding[bStart] & ~BERTags.CONSTRUCTED & 0xff;
+
+        if (a0 != b0)
+        {
+            return a0 < b0;
+        }
+
+        int len = Math.min(aEnd - aStart, bEnd - bStart) - 1;
+        for (int i = 1; i < len; ++i)
+        {
+            if (encoding[aStart + i] != encoding[bStart + i])
+            {
+                return (encoding[aStart + i] & 0xff) < (encoding[bStart + i] & 0xff);
+            }
+        }
+
+        return (encoding[aStart + len] & 0xff) <= (encoding[bStart + len] & 0xff);
+    }
+
+    private void readField(int field, int expectedTag)
+        throws IOException
+    {
+        int start = pos;
+
+        pos = readHeader(expectedTag);
+        mark(field, start, pos);
+    }
+
+    private void mark(int field, int start, int end)
+    {
+        starts[field] = start;
+        ends[field] = end;
+    }
+
+    private int peekTag()
+        throws IOException
+    {
+        if (pos >= encoding.length)
+        {
+            throw new IOException("certificate encoding truncated");
+        }
+
+        return encoding[pos] & 0xff;
+    }
+
+    /**
+     * Read a tag and definite length, leaving pos at the start of the contents and returning the end of the contents.
+     */
+    private int readHeader(int expectedTag)
+        throws IOException
+    {
+        if (peekTag() != expectedTag)
+        {
+            throw new IOException("unexpected tag " + peekTag() + " in certificate encoding");
+        }
+        pos++;
+
+        if (pos >= encoding.length)
+        {
+            throw new IOException("certificate encoding truncated");
+        }
+
+        int length = encoding[pos++] & 0xff;
+        if (length > 127)
+        {
+            int size = length & 0x7f;
+
+            if (size == 0)
+            {
+                throw new IOException("indefinite length found in certificate encoding");
+            }
+            if (size > 4)
+            {
+                throw new IOException("DER length more than 4 bytes: " + size);
+            }
+            if (size > encoding.length - pos)
+            {
+                throw new IOException("certificate encoding truncated");
+            }
+            if (encoding[pos] == 0)
+            {
+                throw new IOException("non-minimal length found in certificate encoding");
+            }
+
+            length = 0;
+            for (int i = 0; i < size; i++)
+            {
+                length = (length << 8) + (encoding[pos++] & 0xff);
+            }
+
+            if (length < 0)
+            {
+                throw new IOException("corrupted stream - negative length found");
+            }
+            if (length < 128)
+            {
+                throw new IOException("non-minimal length found in certificate encoding");
+            }
+        }
+
+        if (length > encoding.length - pos)
+        {
+            throw new IOException("certificate encoding truncated");
+        }
+
+        return pos + length;
+    }
+}
@@ -2,6 +2,7 @@ package com.distrimind.bcfips.jcajce.provider;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.cert.CRL;
@@ -28,6 +29,7 @@ import com.distrimind.bcfips.asn1.ASN1SetParser;
 import com.distrimind.bcfips.asn1.ASN1StreamParser;
 import com.distrimind.bcfips.asn1.ASN1TaggedObject;
 import com.distrimind.bcfips.asn1.BERTaggedObjectParser;
+import com.distrimind.bcfips.asn1.BERTags;
 import com.distrimind.bcfips.asn1.DERSequence;
 import com.distrimind.bcfips.asn1.DERSet;
 import com.distrimind.bcfips.asn1.cms.SignedDataParser;
@@ -35,6 +37,7 @@ import com.distrimind.bcfips.asn1.pkcs.PKCSObjectIdentifiers;
 import com.distrimind.bcfips.asn1.pkcs.SignedData;
 import com.distrimind.bcfips.asn1.x509.Certificate;
 import com.distrimind.bcfips.asn1.x509.CertificateList;
+import com.distrimind.bcfips.util.Properties;
 import com.distrimind.bcfips.util.io.Streams;
 
 /**
@@ -43,6 +46,9 @@ import com.distrimind.bcfips.util.io.Streams;
  * At the moment this will deal with "-----BEGIN CERTIFICATE-----" to "-----END CERTIFICATE-----"
  * base 64 encoded certs, as well as the BER binaries of certificates and some classes of PKCS#7
  * objects.
+ * <p>
+ * If the property "com.distrimind.bcfips.x509.lazy_certificates" is set to true, certificates read from PEM
+ * or from a single DER encoding keep their encoding and only decode their fields as they are needed.
  */
 class CertificateFactory
     extends CertificateFactorySpi
@@ -60,10 +66,77 @@ class CertificateFactory
     private int                sCrlDataObjectCount = 0;
     private InputStream currentCrlStream = null;
     private SignedDataParser signedDataParser = null;
+    private final boolean lazyCertificates;
 
     CertificateFactory(BouncyCastleFipsProvider fipsProvider)
     {
         this.fipsProvider = fipsProvider;
+        this.lazyCertificates = Properties.isOverrideSet("com.distrimind.bcfips.x509.lazy_certificates");
+    }
+
+    /**
+     * Read the complete encoding of a DER certificate, leaving the stream untouched and returning null
+     * if the encoding is indefinite length, is larger than the data available, or looks like PKCS#7.
+     */
+    private byte[] readDEREncoding(InputStream in)
+        throws IOException
+    {
+        in.mark(8);
+
+        in.read();      // SEQUENCE tag
+        int length = in.read();
+        int headerLength = 2;
+
+        if (length == 0x80 || length > 0x84)
+        {
+            in.reset();
+            return null;
+        }
+
+        if (length > 0x80)
+        {
+            int size = length & 0x7f;
+
+            length = 0;
+            for (int i = 0; i != size; i++)
+            {
+                length = (length << 8) | (in.read() & 0xff);
+            }
+            headerLength += size;
+        }
+
+        int first = in.read();
+
+        in.reset();
+
+        if (first == BERTags.OBJECT_IDENTIFIER || length < 0 || length > in.available() - headerLength)
+        {
+            return null;
+        }
+
+        byte[] encoding = new byte[headerLength + length];
+        if (Streams.readFully(in, encoding) != encoding.length)
+        {
+            throw new EOFException("certificate encoding truncated");
+        }
+
+        return encoding;
+    }
+
+    private java.security.cert.Certificate createLazyCertificate(byte[] encoding, boolean isPEM)
+        throws IOException, CertificateParsingException
+    {
+        try
+        {
+            return new X509CertificateObject(fipsProvider, new CertificateEncodingIndex(encoding));
+        }
+        catch (IOException e)
+        {
+            // not an encoding we can index, use the full parser.
+            ASN1Sequence seq = isPEM ? PEM_CERT_PARSER.toSequence(encoding) : ASN1Sequence.getInstance(encoding);
+
+            return new X509CertificateObject(fipsProvider, Certificate.getInstance(seq));
+        }
     }
 
     private java.security.cert.Certificate readDERCertificate()
@@ -166,6 +239,18 @@ class CertificateFactory
         InputStream in)
         throws IOException, CertificateParsingException
     {
+        if (lazyCertificates)
+        {
+            byte[] encoding = PEM_CERT_PARSER.readPEMEncoding(in);
+
+            if (encoding != null)
+            {
+                return createLazyCertificate(encoding, true);
+            }
+
+            return null;
+        }
+
         ASN1Sequence seq = PEM_CERT_PARSER.readPEMObject(in);
 
         if (seq != null)
@@ -312,9 +397,18 @@ class CertificateFactory
                 }
                 else
                 {
-                    currentAsn1Parser = new ASN1StreamParser(pis);
+                    byte[] encoding = lazyCertificates ? readDEREncoding(pis) : null;
+
+                    if (encoding != null)
+                    {
+                        certificate = createLazyCertificate(encoding, false);
+                    }
+                    else
+                    {
+                        currentAsn1Parser = new ASN1StreamParser(pis);
 
-                    certificate = readDERCertificate();
+                        certificate = readDERCertificate();
+                    }
                 }
             }
         }
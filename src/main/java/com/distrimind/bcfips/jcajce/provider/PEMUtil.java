@@ -65,6 +65,35 @@ class PEMUtil
     ASN1Sequence readPEMObject(
         InputStream in)
         throws IOException
+    {
+        return toSequence(readPEMEncoding(in));
+    }
+
+    ASN1Sequence toSequence(
+        byte[] encoding)
+        throws IOException
+    {
+        if (encoding != null)
+        {
+            try
+            {
+                return ASN1Sequence.getInstance(encoding);
+            }
+            catch (Exception e)
+            {
+                throw new IOException("malformed PEM data encountered");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the Base64 decoded contents of the next PEM object, or null if there are no more.
+     */
+    byte[] readPEMEncoding(
+        InputStream in)
+        throws IOException
     {
         String line;
         StringBuffer pemBuf = new StringBuffer();
@@ -91,7 +120,7 @@ class PEMUtil
         {
             try
             {
-                return ASN1Sequence.getInstance(Base64.decode(pemBuf.toString()));
+                return Base64.decode(pemBuf.toString());
             }
             catch (Exception e)
             {
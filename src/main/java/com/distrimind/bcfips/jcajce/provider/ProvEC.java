@@ -59,6 +59,7 @@ import com.distrimind.bcfips.jcajce.spec.MQVParameterSpec;
 import com.distrimind.bcfips.jcajce.spec.UserKeyingMaterialSpec;
 import com.distrimind.bcfips.util.Integers;
 import com.distrimind.bcfips.util.Properties;
+import com.distrimind.bcfips.util.Strings;
 
 class ProvEC
     extends AsymmetricAlgorithmProvider
@@ -92,6 +93,43 @@ class ProvEC
             fipsDHUFactory = new FipsEC.DHUAgreementFactory();
             fipsMQVFactory = Properties.isOverrideSet("com.distrimind.bcfips.ec.disable_mqv") ? null : new FipsEC.MQVAgreementFactory();
             fipsDsaFactory = new FipsEC.DSAOperatorFactory();
+
+            precomputeCurves(Properties.getPropertyValue("com.distrimind.bcfips.ec.precompute"));
+        }
+    }
+
+    /**
+     * Build the comb tables for the curves listed in the "com.distrimind.bcfips.ec.precompute" property,
+     * a comma separated list of curve names or "all" for every custom curve.
+     */
+    private static void precomputeCurves(String curveNames)
+    {
+        if (curveNames == null)
+        {
+            return;
+        }
+
+        if (curveNames.trim().equalsIgnoreCase("all"))
+        {
+            ECDomainParametersIndex.precomputeNamedCurves(new String[0]);
+            return;
+        }
+
+        String[] names = Strings.split(curveNames, ',');
+        for (int i = 0; i != names.length; i++)
+        {
+            String name = names[i].trim();
+            if (name.length() != 0)
+            {
+                try
+                {
+                    ECDomainParametersIndex.precomputeNamedCurves(new String[] { name });
+                }
+                catch (RuntimeException e)
+                {
+                    // unknown or disabled curve - tables will be built on first use if it is ever used.
+                }
+            }
         }
     }
 
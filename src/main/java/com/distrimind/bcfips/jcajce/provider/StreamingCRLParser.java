@@ -0,0 +1,300 @@
+package com.distrimind.bcfips.jcajce.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.CRLException;
+
+import com.distrimind.bcfips.asn1.ASN1Encodable;
+import com.distrimind.bcfips.asn1.ASN1Integer;
+import com.distrimind.bcfips.asn1.ASN1OctetString;
+import com.distrimind.bcfips.asn1.ASN1SequenceParser;
+import com.distrimind.bcfips.asn1.ASN1StreamParser;
+import com.distrimind.bcfips.asn1.ASN1TaggedObject;
+import com.distrimind.bcfips.asn1.ASN1TaggedObjectParser;
+import com.distrimind.bcfips.asn1.DERBitString;
+import com.distrimind.bcfips.asn1.x500.X500Name;
+import com.distrimind.bcfips.asn1.x509.AlgorithmIdentifier;
+import com.distrimind.bcfips.asn1.x509.Extension;
+import com.distrimind.bcfips.asn1.x509.Extensions;
+import com.distrimind.bcfips.asn1.x509.GeneralNames;
+import com.distrimind.bcfips.asn1.x509.IssuingDistributionPoint;
+import com.distrimind.bcfips.asn1.x509.Time;
+import com.distrimind.bcfips.jcajce.io.OutputStreamFactory;
+import com.distrimind.bcfips.util.io.TeeInputStream;
+
+/**
+ * Parser for very large DER encoded CRLs which verifies the CRL signature while the CRL is read
+ * and only retains a compact index of the revoked serial numbers.
+ * <p>
+ * The TBSCertList encoding is passed to the signature as it is read from the stream, and each revoked
+ * certificate entry is discarded once its serial number, and any certificate issuer extension, has
+ * been extracted. The heap used is therefore governed by the size of the resulting {@link CRLRevocationIndex}
+ * rather than the size of the encoded CRL. As the signature is calculated in the same pass the issuer's
+ * public key needs to be known before parsing starts.
+ * </p>
+ */
+public final class StreamingCRLParser
+{
+    private final Provider sigProvider;
+
+    /**
+     * Base constructor - signatures are created using the default JCA provider search.
+     */
+    public StreamingCRLParser()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor specifying a particular provider for signature verification.
+     *
+     * @param sigProvider the provider to create signatures from, null for the default JCA provider search.
+     */
+    public StreamingCRLParser(Provider sigProvider)
+    {
+        this.sigProvider = sigProvider;
+    }
+
+    /**
+     * Read a DER encoded CRL from the passed in stream, verifying it with the passed in public key.
+     *
+     * @param crlStream the stream containing the DER encoding of the CRL.
+     * @param key the public key of the CRL issuer.
+     * @return an index of the revoked certificates in the CRL.
+     * @throws IOException if the stream cannot be read or the encoding is corrupted.
+     * @throws CRLException if the CRL structure is invalid.
+     * @throws NoSuchAlgorithmException if the CRL signature algorithm is not supported.
+     * @throws InvalidKeyException if the key is not suitable for the CRL signature algorithm.
+     * @throws SignatureException if the CRL signature does not verify.
+     */
+    public CRLRevocationIndex parse(InputStream crlStream, PublicKey key)
+        throws IOException, CRLException, NoSuchAlgorithmException, InvalidKeyException, SignatureException
+    {
+        SignatureSink sink = new SignatureSink();
+        ASN1StreamParser aIn = new ASN1StreamParser(new TeeInputStream(crlStream, sink), Integer.MAX_VALUE);
+
+        ASN1SequenceParser crl = getSequenceParser(aIn.readObject());
+        if (crl == null)
+        {
+            throw new CRLException("CRL encoding is not a SEQUENCE");
+        }
+
+        // the TBSCertList encoding starts at the next byte read.
+        sink.startBuffering();
+
+        ASN1SequenceParser tbs = getSequenceParser(crl.readObject());
+        if (tbs == null)
+        {
+            throw new CRLException("TBSCertList encoding is not a SEQUENCE");
+        }
+
+        CRLRevocationIndex.Builder builder = new CRLRevocationIndex.Builder();
+
+        ASN1Encodable obj = tbs.readObject();
+        if (obj instanceof ASN1Integer)
+        {
+            obj = tbs.readObject();       // version
+        }
+
+        AlgorithmIdentifier tbsSigAlgId = AlgorithmIdentifier.getInstance(load(obj));
+
+        sink.startSignature(createSignature(tbsSigAlgId, key));
+
+        builder.setIssuer(X500Name.getInstance(load(tbs.readObject())));
+        builder.setThisUpdate(Time.getInstance(load(tbs.readObject())));
+        builder.setSigAlgOID(tbsSigAlgId.getAlgorithm().getId());
+
+        obj = tbs.readObject();
+        if (obj != null && !(obj instanceof ASN1SequenceParser) && !(obj instanceof ASN1TaggedObjectParser))
+        {
+            builder.setNextUpdate(Time.getInstance(load(obj)));
+            obj = tbs.readObject();
+        }
+
+        if (obj instanceof ASN1SequenceParser)
+        {
+            readEntries((ASN1SequenceParser)obj, builder);
+            obj = tbs.readObject();
+        }
+
+        boolean isIndirect = false;
+        if (obj instanceof ASN1TaggedObjectParser)
+        {
+            Extensions extensions = Extensions.getInstance(ASN1TaggedObject.getInstance(load(obj)), true);
+            Extension idp = extensions.getExtension(Extension.issuingDistributionPoint);
+
+            isIndirect = idp != null && IssuingDistributionPoint.getInstance(idp.getParsedValue()).isIndirectCRL();
+            obj = tbs.readObject();
+        }
+
+        if (obj != null)
+        {
+            throw new CRLException("unknown object in TBSCertList");
+        }
+
+        Signature sig = sink.finish();
+
+        AlgorithmIdentifier sigAlgId = AlgorithmIdentifier.getInstance(load(crl.readObject()));
+        DERBitString signature = DERBitString.getInstance(load(crl.readObject()));
+
+        if (!sigAlgId.equals(tbsSigAlgId))
+        {
+            throw new CRLException("Signature algorithm on CertificateList does not match TBSCertList.");
+        }
+
+        if (!sig.verify(signature.getOctets()))
+        {
+            throw new SignatureException("CRL does not verify with supplied public key.");
+        }
+
+        return builder.build(isIndirect);
+    }
+
+    private void readEntries(ASN1SequenceParser entries, CRLRevocationIndex.Builder builder)
+        throws IOException, CRLException
+    {
+        ASN1Encodable obj;
+        while ((obj = entries.readObject()) != null)
+        {
+            ASN1SequenceParser entry = getSequenceParser(obj);
+            if (entry == null)
+            {
+                throw new CRLException("revoked certificate entry is not a SEQUENCE");
+            }
+
+            ASN1Integer serial = ASN1Integer.getInstance(load(entry.readObject()));
+
+            load(entry.readObject());    // revocation date
+
+            ASN1Encodable extObj = entry.readObject();
+            if (extObj != null)
+            {
+                Extension certIssuer = Extensions.getInstance(load(extObj)).getExtension(Extension.certificateIssuer);
+
+                if (certIssuer != null)
+                {
+                    builder.setCertificateIssuer(X500Name.getInstance(GeneralNames.getInstance(certIssuer.getParsedValue()).getNames()[0].getName()));
+                }
+
+                if (entry.readObject() != null)
+                {
+                    throw new CRLException("unknown object in revoked certificate entry");
+                }
+            }
+
+            builder.addEntry(serial.getValue().toByteArray());
+        }
+    }
+
+    private Signature createSignature(AlgorithmIdentifier sigAlgId, PublicKey key)
+        throws NoSuchAlgorithmException, InvalidKeyException, SignatureException
+    {
+        String sigAlgName = X509SignatureUtil.getSignatureName(sigAlgId);
+        Signature sig;
+
+        if (sigProvider != null)
+        {
+            sig = Signature.getInstance(sigAlgName, sigProvider);
+        }
+        else
+        {
+            sig = Signature.getInstance(sigAlgName);
+        }
+
+        // this needs to be called before initVerify
+        X509SignatureUtil.setSignatureParameters(sig, sigAlgId.getParameters());
+
+        sig.initVerify(key);
+
+        return sig;
+    }
+
+    private static ASN1SequenceParser getSequenceParser(ASN1Encodable obj)
+    {
+        if (obj instanceof ASN1SequenceParser)
+        {
+            return (ASN1SequenceParser)obj;
+        }
+
+        return null;
+    }
+
+    private static ASN1Encodable load(ASN1Encodable obj)
+        throws CRLException
+    {
+        if (obj == null)
+        {
+            throw new CRLException("CRL encoding truncated");
+        }
+
+        return obj.toASN1Primitive();
+    }
+
+    /**
+     * Output stream for the tee - bytes are buffered until the TBSCertList signature algorithm has been read,
+     * then passed straight to the signature until the end of the TBSCertList.
+     */
+    private static class SignatureSink
+        extends OutputStream
+    {
+        private ByteArrayOutputStream buffer;
+        private Signature sig;
+        private OutputStream sigOut;
+
+        void startBuffering()
+        {
+            buffer = new ByteArrayOutputStream();
+        }
+
+        void startSignature(Signature sig)
+            throws IOException
+        {
+            this.sig = sig;
+            this.sigOut = OutputStreamFactory.createStream(sig);
+
+            buffer.writeTo(sigOut);
+            buffer = null;
+        }
+
+        Signature finish()
+        {
+            sigOut = null;
+
+            return sig;
+        }
+
+        public void write(int b)
+            throws IOException
+        {
+            if (sigOut != null)
+            {
+                sigOut.write(b);
+            }
+            else if (buffer != null)
+            {
+                buffer.write(b);
+            }
+        }
+
+        public void write(byte[] b, int off, int len)
+            throws IOException
+        {
+            if (sigOut != null)
+            {
+                sigOut.write(b, off, len);
+            }
+            else if (buffer != null)
+            {
+                buffer.write(b, off, len);
+            }
+        }
+    }
+}
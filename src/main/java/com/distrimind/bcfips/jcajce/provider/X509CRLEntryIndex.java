@@ -0,0 +1,226 @@
+package com.distrimind.bcfips.jcajce.provider;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import com.distrimind.bcfips.asn1.ASN1Encodable;
+import com.distrimind.bcfips.asn1.x500.X500Name;
+import com.distrimind.bcfips.asn1.x509.CertificateList;
+import com.distrimind.bcfips.asn1.x509.Extension;
+import com.distrimind.bcfips.asn1.x509.GeneralNames;
+import com.distrimind.bcfips.asn1.x509.TBSCertList;
+
+/**
+ * Serial number index over the revoked certificates in a CRL.
+ * <p>
+ * Entries are held in an open addressing table of positions, so the memory used is a small
+ * fixed number of ints and one reference per revoked certificate. For indirect CRLs the
+ * certificate issuer in effect for each entry is also recorded, as an index into the list
+ * of distinct certificate issuers seen in the CRL.
+ * </p>
+ */
+final class X509CRLEntryIndex
+{
+    private final ASN1Encodable[] entries;
+    private final int[] hashes;
+    private final int[] table;
+    private final int mask;
+
+    private final int[] issuerIndexes;
+    private final X500Name[] issuers;
+
+    X509CRLEntryIndex(CertificateList crl, boolean isIndirect)
+    {
+        List<ASN1Encodable> entryList = new ArrayList<ASN1Encodable>();
+        List<X500Name> issuerList = null;
+        int[] issuerIdx = null;
+
+        if (isIndirect)
+        {
+            issuerList = new ArrayList<X500Name>();
+            issuerList.add(null);    // index 0: the CRL issuer
+            issuerIdx = new int[16];
+        }
+
+        int currentIssuer = 0;
+        for (Enumeration<?> en = crl.getRevokedCertificateEnumeration(); en.hasMoreElements();)
+        {
+            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)en.nextElement();
+
+            if (isIndirect)
+            {
+                if (entry.hasExtensions())
+                {
+                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+
+                    if (currentCaName != null)
+                    {
+                        X500Name caName = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+
+                        if (!caName.equals(issuerList.get(currentIssuer)))
+                        {
+                            currentIssuer = issuerList.indexOf(caName);
+                            if (currentIssuer < 0)
+                            {
+                                currentIssuer = issuerList.size();
+                                issuerList.add(caName);
+                            }
+                        }
+                    }
+                }
+
+                if (entryList.size() == issuerIdx.length)
+                {
+                    int[] tmp = new int[issuerIdx.length * 2];
+                    System.arraycopy(issuerIdx, 0, tmp, 0, issuerIdx.length);
+                    issuerIdx = tmp;
+                }
+                issuerIdx[entryList.size()] = currentIssuer;
+            }
+
+            entryList.add(entry.toASN1Primitive());
+        }
+
+        int count = entryList.size();
+        int capacity = 2;
+        while (capacity < count * 2)
+        {
+            capacity <<= 1;
+        }
+
+        this.entries = entryList.toArray(new ASN1Encodable[count]);
+        this.hashes = new int[count];
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i != count; i++)
+        {
+            int hash = hash(TBSCertList.CRLEntry.getInstance(entries[i]).getUserCertificate().getValue());
+            int slot = hash & mask;
+
+            // linear probing with no removals - entries sharing a serial number stay in CRL order along the probe chain.
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            hashes[i] = hash;
+            table[slot] = i + 1;
+        }
+
+        if (isIndirect)
+        {
+            this.issuerIndexes = issuerIdx;
+            this.issuers = issuerList.toArray(new X500Name[issuerList.size()]);
+        }
+        else
+        {
+            this.issuerIndexes = null;
+            this.issuers = null;
+        }
+    }
+
+    /**
+     * Return the first entry in the CRL with the passed in serial number.
+     *
+     * @param serialNumber the serial number of interest.
+     * @return the CRL position of the entry, -1 if there isn't one.
+     */
+    int find(BigInteger serialNumber)
+    {
+        int hash = hash(serialNumber);
+
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int pos = table[slot] - 1;
+
+            if (hashes[pos] == hash && serialNumber.equals(getEntry(pos).getUserCertificate().getValue()))
+            {
+                return pos;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Return true if the CRL has an entry for serialNumber whose certificate issuer is certIssuer.
+     *
+     * @param serialNumber the serial number of interest.
+     * @param crlIssuer the issuer of the CRL, the certificate issuer for entries not covered by a certificateIssuer extension.
+     * @param certIssuer the issuer of the certificate being checked.
+     * @return true if the serial number is revoked for certIssuer, false otherwise.
+     */
+    boolean isRevoked(BigInteger serialNumber, X500Name crlIssuer, X500Name certIssuer)
+    {
+        int hash = hash(serialNumber);
+
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask)
+        {
+            int pos = table[slot] - 1;
+
+            if (hashes[pos] == hash && serialNumber.equals(getEntry(pos).getUserCertificate().getValue()))
+            {
+                X500Name issuer = getCertificateIssuer(pos);
+
+                if (issuer == null)
+                {
+                    issuer = crlIssuer;
+                }
+
+                if (issuer.equals(certIssuer))
+                {
+                    return true;
+                }
+
+                if (issuers == null)
+                {
+                    return false;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    TBSCertList.CRLEntry getEntry(int pos)
+    {
+        return TBSCertList.CRLEntry.getInstance(entries[pos]);
+    }
+
+    /**
+     * Return the certificate issuer in effect for the entry at pos, null if it is the CRL issuer.
+     */
+    X500Name getCertificateIssuer(int pos)
+    {
+        if (issuers == null)
+        {
+            return null;
+        }
+
+        return issuers[issuerIndexes[pos]];
+    }
+
+    /**
+     * Return the certificate issuer carried forward from the entries preceding pos, as
+     * expected by {@link X509CRLEntryObject}.
+     */
+    X500Name getPreviousCertificateIssuer(int pos)
+    {
+        if (pos == 0)
+        {
+            return null;
+        }
+
+        return getCertificateIssuer(pos - 1);
+    }
+
+    private static int hash(BigInteger serialNumber)
+    {
+        int h = serialNumber.hashCode();
+
+        return h ^ (h >>> 16);
+    }
+}
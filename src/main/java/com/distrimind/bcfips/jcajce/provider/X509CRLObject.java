@@ -63,6 +63,7 @@ class X509CRLObject
     private final boolean isIndirect;
     private volatile boolean isHashCodeSet = false;
     private volatile int     hashCodeValue;
+    private volatile X509CRLEntryIndex entryIndex;
 
     static boolean isIndirectCRL(X509CRL crl)
         throws CRLException
@@ -352,30 +353,31 @@ class X509CRLObject
 
     public X509CRLEntry getRevokedCertificate(BigInteger serialNumber)
     {
-        Enumeration certs = c.getRevokedCertificateEnumeration();
+        X509CRLEntryIndex index = getEntryIndex();
 
-        X500Name previousCertificateIssuer = null; // the issuer
-        while (certs.hasMoreElements())
+        int pos = index.find(serialNumber);
+        if (pos >= 0)
         {
-            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)certs.nextElement();
+            return new X509CRLEntryObject(index.getEntry(pos), isIndirect, index.getPreviousCertificateIssuer(pos));
+        }
 
-            if (serialNumber.equals(entry.getUserCertificate().getValue()))
-            {
-                return new X509CRLEntryObject(entry, isIndirect, previousCertificateIssuer);
-            }
+        return null;
+    }
 
-            if (isIndirect && entry.hasExtensions())
-            {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+    /**
+     * Return the serial number index for the revoked certificates, building it on first use.
+     */
+    private X509CRLEntryIndex getEntryIndex()
+    {
+        X509CRLEntryIndex index = entryIndex;
 
-                if (currentCaName != null)
-                {
-                    previousCertificateIssuer = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
-                }
-            }
+        if (index == null)
+        {
+            index = new X509CRLEntryIndex(c, isIndirect);
+            entryIndex = index;
         }
 
-        return null;
+        return index;
     }
 
     public Set getRevokedCertificates()
@@ -575,56 +577,30 @@ class X509CRLObject
             throw new IllegalArgumentException("X.509 CRL used with non X.509 Cert");
         }
 
-        Enumeration certs = c.getRevokedCertificateEnumeration();
-
-        X500Name caName = c.getIssuer();
+        BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+        X509CRLEntryIndex index = getEntryIndex();
 
-        if (certs.hasMoreElements())
+        if (index.find(serial) >= 0)
         {
-            BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+            X500Name issuer;
 
-            while (certs.hasMoreElements())
+            if (cert instanceof X509Certificate)
             {
-                TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(certs.nextElement());
-
-                if (isIndirect && entry.hasExtensions())
+                issuer = X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
+            }
+            else
+            {
+                try
                 {
-                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
-
-                    if (currentCaName != null)
-                    {
-                        caName = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
-                    }
+                    issuer = com.distrimind.bcfips.asn1.x509.TBSCertificate.getInstance(cert.getEncoded()).getIssuer();
                 }
-
-                if (entry.getUserCertificate().getValue().equals(serial))
+                catch (CertificateEncodingException e)
                 {
-                    X500Name issuer;
-
-                    if (cert instanceof X509Certificate)
-                    {
-                        issuer = X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
-                    }
-                    else
-                    {
-                        try
-                        {
-                            issuer = com.distrimind.bcfips.asn1.x509.TBSCertificate.getInstance(cert.getEncoded()).getIssuer();
-                        }
-                        catch (CertificateEncodingException e)
-                        {
-                            throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage(), e);
-                        }
-                    }
-
-                    if (!caName.equals(issuer))
-                    {
-                        return false;
-                    }
-
-                    return true;
+                    throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage(), e);
                 }
             }
+
+            return index.isRevoked(serial, c.getIssuer(), issuer);
         }
 
         return false;
@@ -33,11 +33,13 @@ import javax.security.auth.x500.X500Principal;
 
 import com.distrimind.bcfips.asn1.ASN1Encodable;
 import com.distrimind.bcfips.asn1.ASN1Encoding;
+import com.distrimind.bcfips.asn1.ASN1Integer;
 import com.distrimind.bcfips.asn1.ASN1ObjectIdentifier;
 import com.distrimind.bcfips.asn1.ASN1OutputStream;
 import com.distrimind.bcfips.asn1.ASN1Primitive;
 import com.distrimind.bcfips.asn1.ASN1Sequence;
 import com.distrimind.bcfips.asn1.ASN1String;
+import com.distrimind.bcfips.asn1.ASN1TaggedObject;
 import com.distrimind.bcfips.asn1.DERBitString;
 import com.distrimind.bcfips.asn1.DERIA5String;
 import com.distrimind.bcfips.asn1.DERNull;
@@ -55,17 +57,37 @@ import com.distrimind.bcfips.asn1.x509.Extension;
 import com.distrimind.bcfips.asn1.x509.Extensions;
 import com.distrimind.bcfips.asn1.x509.GeneralName;
 import com.distrimind.bcfips.asn1.x509.KeyUsage;
+import com.distrimind.bcfips.asn1.x509.SubjectPublicKeyInfo;
+import com.distrimind.bcfips.asn1.x509.Time;
+import com.distrimind.bcfips.util.Arrays;
 import com.distrimind.bcfips.util.Integers;
 import com.distrimind.bcfips.util.Strings;
 import com.distrimind.bcfips.util.encoders.Hex;
 
+/**
+ * X.509 certificate backed either by a parsed Certificate structure, or by the certificate's encoding.
+ * <p>
+ * When created from the encoding only the positions of the top level fields are recorded up front - the
+ * subject, issuer, serial number and signature are taken from the encoding as required, and the validity,
+ * public key and extensions are decoded when they are first asked for. The full Certificate structure is
+ * only built for the less common requests, such as the unique identifiers.
+ * </p>
+ */
 class X509CertificateObject
     extends X509Certificate
 {
     private final BouncyCastleFipsProvider fipsProvider;
-    private final com.distrimind.bcfips.asn1.x509.Certificate    c;
-    private final BasicConstraints            basicConstraints;
-    private final boolean[]                   keyUsage;
+    private final CertificateEncodingIndex encoding;
+
+    private volatile com.distrimind.bcfips.asn1.x509.Certificate    c;
+    private volatile boolean            keyExtensionsSet;
+    private volatile BasicConstraints   basicConstraints;
+    private volatile boolean[]          keyUsage;
+    private volatile boolean            extensionsSet;
+    private volatile Extensions         extensions;
+    private volatile Time[]             validity;
+    private volatile BigInteger         serialNumber;
+    private volatile AlgorithmIdentifier sigAlgId;
 
     private volatile PublicKey          publicKeyValue;
     private volatile boolean            hashValueSet;
@@ -77,8 +99,33 @@ class X509CertificateObject
         throws CertificateParsingException
     {
         this.fipsProvider = fipsProvider;
+        this.encoding = null;
         this.c = c;
 
+        loadKeyExtensions();
+    }
+
+    /**
+     * Create a certificate which decodes its fields from the indexed encoding when they are first requested.
+     * Errors in the contents of the fields are reported when the field is decoded.
+     *
+     * @param fipsProvider the provider to use for public key creation.
+     * @param encoding the index of the certificate's encoding.
+     */
+    X509CertificateObject(
+        BouncyCastleFipsProvider fipsProvider,
+        CertificateEncodingIndex encoding)
+    {
+        this.fipsProvider = fipsProvider;
+        this.encoding = encoding;
+    }
+
+    private void loadKeyExtensions()
+        throws CertificateParsingException
+    {
+        BasicConstraints basicConstraints;
+        boolean[] keyUsage;
+
         try
         {
             byte[]  bytes = this.getExtensionBytes("2.5.29.19");
@@ -123,6 +170,115 @@ class X509CertificateObject
         {
             throw new CertificateParsingException("cannot construct KeyUsage: " + e);
         }
+
+        this.basicConstraints = basicConstraints;
+        this.keyUsage = keyUsage;
+        this.keyExtensionsSet = true;
+    }
+
+    private void ensureKeyExtensions()
+    {
+        if (!keyExtensionsSet)
+        {
+            try
+            {
+                loadKeyExtensions();
+            }
+            catch (CertificateParsingException e)
+            {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private com.distrimind.bcfips.asn1.x509.Certificate getCertificate()
+    {
+        if (c == null)
+        {
+            try
+            {
+                c = com.distrimind.bcfips.asn1.x509.Certificate.getInstance(encoding.getEncoding());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IllegalStateException("unable to decode certificate: " + e.getMessage(), e);
+            }
+        }
+
+        return c;
+    }
+
+    private ASN1Primitive decodeField(int field)
+    {
+        try
+        {
+            return encoding.decodeField(field);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("unable to decode certificate field: " + e.getMessage(), e);
+        }
+    }
+
+    private Extensions getCertificateExtensions()
+    {
+        if (!extensionsSet)
+        {
+            if (encoding == null)
+            {
+                extensions = c.getTBSCertificate().getExtensions();
+            }
+            else if (encoding.hasField(CertificateEncodingIndex.EXTENSIONS))
+            {
+                try
+                {
+                    extensions = Extensions.getInstance(ASN1TaggedObject.getInstance(decodeField(CertificateEncodingIndex.EXTENSIONS)), true);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IllegalStateException("unable to decode extensions: " + e.getMessage(), e);
+                }
+            }
+            extensionsSet = true;
+        }
+
+        return extensions;
+    }
+
+    private Time[] getValidity()
+    {
+        if (validity == null)
+        {
+            if (encoding == null)
+            {
+                validity = new Time[] { c.getStartDate(), c.getEndDate() };
+            }
+            else
+            {
+                ASN1Sequence dates = ASN1Sequence.getInstance(decodeField(CertificateEncodingIndex.VALIDITY));
+
+                validity = new Time[] { Time.getInstance(dates.getObjectAt(0)), Time.getInstance(dates.getObjectAt(1)) };
+            }
+        }
+
+        return validity;
+    }
+
+    private AlgorithmIdentifier getSignatureAlgorithm()
+    {
+        if (sigAlgId == null)
+        {
+            if (encoding == null)
+            {
+                sigAlgId = c.getSignatureAlgorithm();
+            }
+            else
+            {
+                sigAlgId = AlgorithmIdentifier.getInstance(decodeField(CertificateEncodingIndex.SIGNATURE_ALGORITHM));
+            }
+        }
+
+        return sigAlgId;
     }
 
     public void checkValidity()
@@ -137,23 +293,40 @@ class X509CertificateObject
     {
         if (date.getTime() > this.getNotAfter().getTime())  // for other VM compatibility
         {
-            throw new CertificateExpiredException("certificate expired on " + c.getEndDate().getTime());
+            throw new CertificateExpiredException("certificate expired on " + getValidity()[1].getTime());
         }
 
         if (date.getTime() < this.getNotBefore().getTime())
         {
-            throw new CertificateNotYetValidException("certificate not valid till " + c.getStartDate().getTime());
+            throw new CertificateNotYetValidException("certificate not valid till " + getValidity()[0].getTime());
         }
     }
 
     public int getVersion()
     {
+        if (encoding != null)
+        {
+            return encoding.getVersion();
+        }
+
         return c.getVersionNumber();
     }
 
     public BigInteger getSerialNumber()
     {
-        return c.getSerialNumber().getValue();
+        if (serialNumber == null)
+        {
+            if (encoding == null)
+            {
+                serialNumber = c.getSerialNumber().getValue();
+            }
+            else
+            {
+                serialNumber = ASN1Integer.getInstance(decodeField(CertificateEncodingIndex.SERIAL_NUMBER)).getValue();
+            }
+        }
+
+        return serialNumber;
     }
 
     public Principal getIssuerDN()
@@ -163,6 +336,11 @@ class X509CertificateObject
 
     public X500Principal getIssuerX500Principal()
     {
+        if (encoding != null)
+        {
+            return new X500Principal(encoding.getField(CertificateEncodingIndex.ISSUER));
+        }
+
         try
         {
             ByteArrayOutputStream bOut = new ByteArrayOutputStream();
@@ -185,6 +363,11 @@ class X509CertificateObject
 
     public X500Principal getSubjectX500Principal()
     {
+        if (encoding != null)
+        {
+            return new X500Principal(encoding.getField(CertificateEncodingIndex.SUBJECT));
+        }
+
         try
         {
             ByteArrayOutputStream bOut = new ByteArrayOutputStream();
@@ -202,17 +385,22 @@ class X509CertificateObject
 
     public Date getNotBefore()
     {
-        return c.getStartDate().getDate();
+        return getValidity()[0].getDate();
     }
 
     public Date getNotAfter()
     {
-        return c.getEndDate().getDate();
+        return getValidity()[1].getDate();
     }
 
     public byte[] getTBSCertificate()
         throws CertificateEncodingException
     {
+        if (encoding != null)
+        {
+            return encoding.getField(CertificateEncodingIndex.TBS_CERTIFICATE);
+        }
+
         try
         {
             return c.getTBSCertificate().getEncoded(ASN1Encoding.DER);
@@ -225,6 +413,11 @@ class X509CertificateObject
 
     public byte[] getSignature()
     {
+        if (encoding != null)
+        {
+            return DERBitString.getInstance(decodeField(CertificateEncodingIndex.SIGNATURE)).getOctets();
+        }
+
         return c.getSignature().getOctets();
     }
 
@@ -268,7 +461,7 @@ class X509CertificateObject
      */
     public String getSigAlgOID()
     {
-        return c.getSignatureAlgorithm().getAlgorithm().getId();
+        return getSignatureAlgorithm().getAlgorithm().getId();
     }
 
     /**
@@ -276,11 +469,13 @@ class X509CertificateObject
      */
     public byte[] getSigAlgParams()
     {
-        if (c.getSignatureAlgorithm().getParameters() != null)
+        AlgorithmIdentifier sigAlgId = getSignatureAlgorithm();
+
+        if (sigAlgId.getParameters() != null)
         {
             try
             {
-                return c.getSignatureAlgorithm().getParameters().toASN1Primitive().getEncoded(ASN1Encoding.DER);
+                return sigAlgId.getParameters().toASN1Primitive().getEncoded(ASN1Encoding.DER);
             }
             catch (IOException e)
             {
@@ -295,7 +490,7 @@ class X509CertificateObject
 
     public boolean[] getIssuerUniqueID()
     {
-        DERBitString    id = c.getTBSCertificate().getIssuerUniqueId();
+        DERBitString    id = getCertificate().getTBSCertificate().getIssuerUniqueId();
 
         if (id != null)
         {
@@ -315,7 +510,7 @@ class X509CertificateObject
 
     public boolean[] getSubjectUniqueID()
     {
-        DERBitString    id = c.getTBSCertificate().getSubjectUniqueId();
+        DERBitString    id = getCertificate().getTBSCertificate().getSubjectUniqueId();
 
         if (id != null)
         {
@@ -335,6 +530,8 @@ class X509CertificateObject
 
     public boolean[] getKeyUsage()
     {
+        ensureKeyExtensions();
+
         return keyUsage;
     }
 
@@ -368,6 +565,10 @@ class X509CertificateObject
     
     public int getBasicConstraints()
     {
+        ensureKeyExtensions();
+
+        BasicConstraints basicConstraints = this.basicConstraints;
+
         if (basicConstraints != null)
         {
             if (basicConstraints.isCA())
@@ -407,7 +608,7 @@ class X509CertificateObject
         if (this.getVersion() == 3)
         {
             Set set = new HashSet();
-            Extensions  extensions = c.getTBSCertificate().getExtensions();
+            Extensions  extensions = getCertificateExtensions();
 
             if (extensions != null)
             {
@@ -433,7 +634,7 @@ class X509CertificateObject
 
     private byte[] getExtensionBytes(String oid)
     {
-        Extensions exts = c.getTBSCertificate().getExtensions();
+        Extensions exts = getCertificateExtensions();
 
         if (exts != null)
         {
@@ -449,7 +650,7 @@ class X509CertificateObject
 
     public byte[] getExtensionValue(String oid)
     {
-        Extensions exts = c.getTBSCertificate().getExtensions();
+        Extensions exts = getCertificateExtensions();
 
         if (exts != null)
         {
@@ -476,7 +677,7 @@ class X509CertificateObject
         if (this.getVersion() == 3)
         {
             Set set = new HashSet();
-            Extensions  extensions = c.getTBSCertificate().getExtensions();
+            Extensions  extensions = getCertificateExtensions();
 
             if (extensions != null)
             {
@@ -504,7 +705,7 @@ class X509CertificateObject
     {
         if (this.getVersion() == 3)
         {
-            Extensions  extensions = c.getTBSCertificate().getExtensions();
+            Extensions  extensions = getCertificateExtensions();
 
             if (extensions != null)
             {
@@ -526,7 +727,14 @@ class X509CertificateObject
             // we cache the public key as assurance checking can be quite expensive
             if (publicKeyValue == null)
             {
-                publicKeyValue = fipsProvider.getPublicKey(c.getSubjectPublicKeyInfo());
+                if (encoding != null)
+                {
+                    publicKeyValue = fipsProvider.getPublicKey(SubjectPublicKeyInfo.getInstance(decodeField(CertificateEncodingIndex.SUBJECT_PUBLIC_KEY_INFO)));
+                }
+                else
+                {
+                    publicKeyValue = fipsProvider.getPublicKey(c.getSubjectPublicKeyInfo());
+                }
             }
             return publicKeyValue;
         }
@@ -539,6 +747,11 @@ class X509CertificateObject
     public byte[] getEncoded()
         throws CertificateEncodingException
     {
+        if (encoding != null)
+        {
+            return Arrays.clone(encoding.getEncoding());
+        }
+
         try
         {
             return c.getEncoded(ASN1Encoding.DER);
@@ -569,7 +782,12 @@ class X509CertificateObject
                 }
             }
 
-            return this.c.equals(other.c);
+            if (this.encoding != null && other.encoding != null)
+            {
+                return Arrays.areEqual(this.encoding.getEncoding(), other.encoding.getEncoding());
+            }
+
+            return this.getCertificate().equals(other.getCertificate());
         }
 
         return super.equals(o);
@@ -615,7 +833,7 @@ class X509CertificateObject
             }
         }
 
-        Extensions extensions = c.getTBSCertificate().getExtensions();
+        Extensions extensions = getCertificateExtensions();
 
         if (extensions != null)
         {
@@ -688,7 +906,7 @@ class X509CertificateObject
         throws CertificateException, NoSuchAlgorithmException,
         InvalidKeyException, NoSuchProviderException, SignatureException
     {
-        String sigName = X509SignatureUtil.getSignatureName(c.getSignatureAlgorithm());
+        String sigName = X509SignatureUtil.getSignatureName(getSignatureAlgorithm());
         Signature signature = getSignatureFromProvider(fipsProvider, sigName);
         
         checkSignature(key, signature);
@@ -700,7 +918,7 @@ class X509CertificateObject
         throws CertificateException, NoSuchAlgorithmException,
         InvalidKeyException, NoSuchProviderException, SignatureException
     {
-        String sigName = X509SignatureUtil.getSignatureName(c.getSignatureAlgorithm());
+        String sigName = X509SignatureUtil.getSignatureName(getSignatureAlgorithm());
         Signature signature;
 
         if (sigProvider != null)
@@ -721,7 +939,7 @@ class X509CertificateObject
         throws CertificateException, NoSuchAlgorithmException,
         InvalidKeyException, SignatureException
     {
-        String sigName = X509SignatureUtil.getSignatureName(c.getSignatureAlgorithm());
+        String sigName = X509SignatureUtil.getSignatureName(getSignatureAlgorithm());
         Signature signature;
 
         signature = getSignatureFromProvider(sigProvider, sigName);
@@ -755,12 +973,21 @@ class X509CertificateObject
         throws CertificateException, NoSuchAlgorithmException,
         SignatureException, InvalidKeyException
     {
-        if (!isAlgIdEqual(c.getSignatureAlgorithm(), c.getTBSCertificate().getSignature()))
+        if (encoding != null)
+        {
+            // identical encodings need no further checking.
+            if (!encoding.fieldEquals(CertificateEncodingIndex.SIGNATURE_ALGORITHM, encoding, CertificateEncodingIndex.TBS_SIGNATURE)
+                && !isAlgIdEqual(getSignatureAlgorithm(), AlgorithmIdentifier.getInstance(decodeField(CertificateEncodingIndex.TBS_SIGNATURE))))
+            {
+                throw new CertificateException("signature algorithm in TBS cert not same as outer cert");
+            }
+        }
+        else if (!isAlgIdEqual(c.getSignatureAlgorithm(), c.getTBSCertificate().getSignature()))
         {
             throw new CertificateException("signature algorithm in TBS cert not same as outer cert");
         }
 
-        ASN1Encodable params = c.getSignatureAlgorithm().getParameters();
+        ASN1Encodable params = getSignatureAlgorithm().getParameters();
 
         // this needs to be called before initVerify
         X509SignatureUtil.setSignatureParameters(signature, params);
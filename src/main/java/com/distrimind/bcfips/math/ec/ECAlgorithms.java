@@ -12,6 +12,11 @@ import com.distrimind.bcfips.math.field.PolynomialExtensionField;
 
 public class ECAlgorithms
 {
+    /*
+     * Number of terms from which sumOfMultiplies switches from interleaved wNAF to Pippenger's bucket method.
+     */
+    private static final int PIPPENGER_THRESHOLD = 512;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -67,6 +72,11 @@ public class ECAlgorithms
             return implCheckResult(implSumOfMultipliesGLV(imported, ks, (GLVEndomorphism)endomorphism));
         }
 
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            return implCheckResult(implSumOfMultipliesPippenger(imported, ks));
+        }
+
         return implCheckResult(implSumOfMultiplies(imported, ks));
     }
 
@@ -415,7 +425,7 @@ public class ECAlgorithms
         }
 
         ECPointMap pointMap = glvEndomorphism.getPointMap();
-        if (glvEndomorphism.hasEfficientPointMap())
+        if (glvEndomorphism.hasEfficientPointMap() && len < PIPPENGER_THRESHOLD)
         {
             return implSumOfMultiplies(ps, pointMap, abs);
         }
@@ -428,9 +438,157 @@ public class ECAlgorithms
             pqs[j++] = q;
         }
 
+        if (len >= PIPPENGER_THRESHOLD)
+        {
+            return implSumOfMultipliesPippenger(pqs, abs);
+        }
+
         return implSumOfMultiplies(pqs, abs);
     }
 
+    /*
+     * Pippenger's bucket method, using signed digits in radix 2^c so each window needs 2^(c-1) buckets.
+     * Every point is added to one bucket per window, and the buckets are combined with two additions each
+     * using running sums, so the cost is about (b / c) * (n + 2^c) additions for n scalars of b bits, with
+     * c chosen to minimise it. The input points and the buckets are normalized using the Montgomery trick
+     * so most of the additions can use mixed coordinates.
+     */
+    static ECPoint implSumOfMultipliesPippenger(ECPoint[] ps, BigInteger[] ks)
+    {
+        int count = ps.length;
+        ECCurve curve = ps[0].getCurve();
+
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        int bits = 0;
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger ki = ks[i];
+            points[i] = ki.signum() < 0 ? ps[i].negate() : ps[i];
+            scalars[i] = ki.abs();
+            bits = Math.max(bits, scalars[i].bitLength());
+        }
+
+        curve.normalizeAll(points);
+
+        int c = getPippengerWindowSize(count, bits);
+        int windows = bits / c + 1;             // the top window takes the final carry.
+        int[][] digits = new int[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            digits[i] = getSignedDigits(scalars[i], c, windows);
+        }
+
+        ECPoint infinity = curve.getInfinity();
+        ECPoint[] buckets = new ECPoint[1 << (c - 1)];
+        ECPoint R = infinity;
+
+        for (int w = windows - 1; w >= 0; --w)
+        {
+            if (R != infinity)
+            {
+                R = R.timesPow2(c);
+            }
+
+            int top = -1;
+            for (int i = 0; i < count; ++i)
+            {
+                int d = digits[i][w];
+                if (d == 0 || points[i].isInfinity())
+                {
+                    continue;
+                }
+
+                int b = Math.abs(d) - 1;
+                ECPoint p = d > 0 ? points[i] : points[i].negate();
+
+                buckets[b] = buckets[b] == null ? p : buckets[b].add(p);
+                top = Math.max(top, b);
+            }
+
+            if (top < 0)
+            {
+                continue;
+            }
+
+            normalizeBuckets(curve, buckets, top + 1);
+
+            // sum of (b + 1) * buckets[b], computed as the sum of the running sums from the top bucket down.
+            ECPoint running = infinity, sum = infinity;
+            for (int b = top; b >= 0; --b)
+            {
+                if (buckets[b] != null)
+                {
+                    running = running.add(buckets[b]);
+                    buckets[b] = null;
+                }
+                sum = sum.add(running);
+            }
+
+            R = R.add(sum);
+        }
+
+        return R;
+    }
+
+    private static void normalizeBuckets(ECCurve curve, ECPoint[] buckets, int len)
+    {
+        int pending = 0;
+        for (int i = 0; i < len; ++i)
+        {
+            if (buckets[i] != null && !buckets[i].isNormalized())
+            {
+                ++pending;
+            }
+        }
+
+        // the shared inversion only pays for itself once enough of the following additions become mixed additions.
+        if (pending >= 8)
+        {
+            curve.normalizeAll(buckets, 0, len, null);
+        }
+    }
+
+    private static int getPippengerWindowSize(int count, int bits)
+    {
+        int best = 1;
+        long bestCost = Long.MAX_VALUE;
+        for (int c = 1; c <= 16; ++c)
+        {
+            long cost = (long)(bits / c + 1) * (count + (2L << (c - 1)));
+            if (cost < bestCost)
+            {
+                best = c;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Recode k into windows of c bits with digits in [-2^(c-1), 2^(c-1)], least significant window first.
+     */
+    private static int[] getSignedDigits(BigInteger k, int c, int windows)
+    {
+        int[] digits = new int[windows];
+        int half = 1 << (c - 1), carry = 0;
+        for (int w = 0; w < windows; ++w)
+        {
+            int d = carry;
+            for (int b = 0; b < c; ++b)
+            {
+                if (k.testBit(w * c + b))
+                {
+                    d += 1 << b;
+                }
+            }
+
+            carry = d > half ? 1 : 0;
+            digits[w] = d - (carry << c);
+        }
+        return digits;
+    }
+
     static ECPoint implSumOfMultiplies(ECPoint[] ps, ECPointMap pointMap, BigInteger[] ks)
     {
         int halfCount = ps.length, fullCount = halfCount << 1;
@@ -162,28 +162,24 @@ public abstract class ECCurve
     {
         checkPoint(point);
 
-        Map<String, PreCompInfo> table;
-        synchronized (point)
-        {
-            table = point.preCompTable;
-        }
-
+        // tables are never modified once published, so no locking is required to read them.
+        Map<String, PreCompInfo> table = point.preCompTable;
         if (null == table)
         {
             return null;
         }
 
-        synchronized (table)
-        {
-            return table.get(name);
-        }
+        return table.get(name);
     }
 
     /**
      * Compute a <code>PreCompInfo</code> for a point on this curve, under a given name. Used by
      * <code>ECMultiplier</code>s to save the precomputation for this <code>ECPoint</code> for use
      * by subsequent multiplication.
-     * 
+     * <p>
+     * The point's precomputation table is copied on write and published as an immutable map, so
+     * once a sufficient precomputation is in place subsequent calls do not take any locks.
+     * </p>
      * @param point
      *            The <code>ECPoint</code> to store precomputations for.
      * @param name
@@ -195,24 +191,35 @@ public abstract class ECCurve
     {
         checkPoint(point);
 
-        Map<String, PreCompInfo> table;
-        synchronized (point)
+        Map<String, PreCompInfo> table = point.preCompTable;
+        PreCompInfo existing = (null == table) ? null : table.get(name);
+        PreCompInfo result = null;
+
+        if (null != existing)
         {
-            table = point.preCompTable;
-            if (null == table)
+            result = callback.precompute(existing);
+            if (result == existing)
             {
-                point.preCompTable = table = new HashMap<String, PreCompInfo>(4);
+                return result;
             }
         }
 
-        synchronized (table)
+        synchronized (point)
         {
-            PreCompInfo existing = table.get(name);
-            PreCompInfo result = callback.precompute(existing);
+            Map<String, PreCompInfo> current = point.preCompTable;
+            if (null == result || current != table)
+            {
+                existing = (null == current) ? null : current.get(name);
+                result = callback.precompute(existing);
+            }
 
             if (result != existing)
             {
-                table.put(name, result);
+                Map<String, PreCompInfo> updated = (null == current)
+                    ? new HashMap<String, PreCompInfo>(4) : new HashMap<String, PreCompInfo>(current);
+
+                updated.put(name, result);
+                point.preCompTable = updated;
             }
 
             return result;
@@ -125,7 +125,7 @@ public abstract class ECPoint
     protected ECFieldElement y;
     protected ECFieldElement[] zs;
 
-    protected Map<String, PreCompInfo> preCompTable = null;
+    protected volatile Map<String, PreCompInfo> preCompTable = null;
 
     protected ECPoint(ECCurve curve, ECFieldElement x, ECFieldElement y)
     {
@@ -441,6 +441,310 @@ public abstract class Ed25519
         return Arrays.areEqual(check, R);
     }
 
+    private boolean implVerifyCofactored(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] m, int mOff, int mLen)
+    {
+        byte[] R = Arrays.copyOfRange(sig, sigOff, sigOff + POINT_BYTES);
+        byte[] S = Arrays.copyOfRange(sig, sigOff + POINT_BYTES, sigOff + SIGNATURE_SIZE);
+
+        if (!checkPointVar(R))
+        {
+            return false;
+        }
+        if (!checkScalarVar(S))
+        {
+            return false;
+        }
+
+        // the equation is 8 * (S.B - k.A - R) == 0, so both points are decoded negated.
+        PointExt pA = new PointExt();
+        PointExt pR = new PointExt();
+        if (!decodePointVar(pk, pkOff, true, pA) || !decodePointVar(R, 0, true, pR))
+        {
+            return false;
+        }
+
+        Digest d = createDigest();
+        byte[] h = new byte[d.getDigestSize()];
+
+        d.update(R, 0, POINT_BYTES);
+        d.update(pk, pkOff, POINT_BYTES);
+        d.update(m, mOff, mLen);
+        d.doFinal(h, 0);
+
+        byte[] k = reduceScalar(h);
+
+        int[] nS = new int[SCALAR_INTS];
+        decodeScalar(S, 0, nS);
+
+        int[] nA = new int[SCALAR_INTS];
+        decodeScalar(k, 0, nA);
+
+        PointAccum pZ = new PointAccum();
+        scalarMultStraussVar(nS, nA, pA, pZ);
+        pointAddVar(false, pR, pZ);
+
+        // clear any small order component
+        for (int i = 0; i < 3; ++i)
+        {
+            pointDouble(pZ);
+        }
+
+        // the neutral element is (0, 1), so X == 0 and Y == Z.
+        int[] t = X25519Field.create();
+        X25519Field.sub(pZ.y, pZ.z, t);
+        X25519Field.normalize(t);
+        X25519Field.normalize(pZ.x);
+
+        return X25519Field.isZeroVar(pZ.x) && X25519Field.isZeroVar(t);
+    }
+
+    private boolean[] implVerifyBatch(byte[][] sigs, byte[][] pks, byte[][] ms, SecureRandom random)
+    {
+        int count = sigs.length;
+        if (pks.length != count || ms.length != count)
+        {
+            throw new IllegalArgumentException("batch arrays must be the same length");
+        }
+
+        boolean[] results = new boolean[count];
+
+        PointExt[] points = new PointExt[count * 2 + 1];
+        int[][] scalars = new int[count * 2 + 1][];
+        int pointCount = 0;
+
+        Digest d = createDigest();
+        byte[] h = new byte[d.getDigestSize()];
+        byte[] z = new byte[SCALAR_BYTES];
+        byte[] zero = new byte[SCALAR_BYTES];
+        byte[] sumS = new byte[SCALAR_BYTES];
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] sig = sigs[i], pk = pks[i];
+            if (sig.length != SIGNATURE_SIZE || pk.length != PUBLIC_KEY_SIZE)
+            {
+                continue;
+            }
+
+            byte[] R = Arrays.copyOfRange(sig, 0, POINT_BYTES);
+            byte[] S = Arrays.copyOfRange(sig, POINT_BYTES, SIGNATURE_SIZE);
+
+            if (!checkPointVar(R) || !checkScalarVar(S))
+            {
+                continue;
+            }
+
+            // the batch equation is sum(z_i * (S_i.B - k_i.A_i - R_i)) == 0, so both points are decoded negated.
+            PointExt pA = new PointExt();
+            PointExt pR = new PointExt();
+            if (!decodePointVar(pk, 0, true, pA) || !decodePointVar(R, 0, true, pR))
+            {
+                continue;
+            }
+
+            d.update(R, 0, POINT_BYTES);
+            d.update(pk, 0, POINT_BYTES);
+            d.update(ms[i], 0, ms[i].length);
+            d.doFinal(h, 0);
+
+            byte[] k = reduceScalar(h);
+
+            // 128 bit random, non-zero, coefficient for this signature's equation
+            do
+            {
+                random.nextBytes(h);
+                System.arraycopy(h, 0, z, 0, 16);
+            }
+            while (Arrays.areAllZeroes(z, 0, 16));
+
+            sumS = calculateS(sumS, z, S);
+
+            int[] nA = new int[SCALAR_INTS];
+            decodeScalar(calculateS(zero, z, k), 0, nA);
+            int[] nR = new int[SCALAR_INTS];
+            decodeScalar(z, 0, nR);
+
+            points[pointCount] = pA;
+            scalars[pointCount++] = nA;
+            points[pointCount] = pR;
+            scalars[pointCount++] = nR;
+
+            results[i] = true;
+        }
+
+        if (pointCount == 0)
+        {
+            return results;
+        }
+
+        PointExt b = new PointExt();
+        X25519Field.copy(B_x, 0, b.x, 0);
+        X25519Field.copy(B_y, 0, b.y, 0);
+        pointExtendXY(b);
+
+        int[] nB = new int[SCALAR_INTS];
+        decodeScalar(sumS, 0, nB);
+
+        points[pointCount] = b;
+        scalars[pointCount++] = nB;
+
+        if (isNeutralMultiSumVar(points, scalars, pointCount))
+        {
+            return results;
+        }
+
+        // at least one signature is bad - fall back to checking each one.
+        for (int i = 0; i < count; ++i)
+        {
+            if (results[i])
+            {
+                results[i] = implVerifyCofactored(sigs[i], 0, pks[i], 0, ms[i], 0, ms[i].length);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Pippenger's bucket method for sum(ks[i] * ps[i]), returning true if the sum, multiplied by
+     * the cofactor, is the neutral element.
+     */
+    private static boolean isNeutralMultiSumVar(PointExt[] ps, int[][] ks, int count)
+    {
+        int c = 2;
+        long best = Long.MAX_VALUE;
+        for (int w = 2; w <= 16; ++w)
+        {
+            long cost = (long)(256 / w + 1) * (count + (2L << (w - 1)));
+            if (cost < best)
+            {
+                best = cost;
+                c = w;
+            }
+        }
+
+        int windows = 256 / c + 1;
+        int bucketCount = 1 << (c - 1);
+
+        int[][] digits = new int[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            digits[i] = getSignedDigits(ks[i], c, windows);
+        }
+
+        PointExt[] buckets = new PointExt[bucketCount];
+        PointExt acc = new PointExt();
+        PointExt sum = new PointExt();
+        PointExt total = new PointExt();
+        pointSetNeutral(acc);
+
+        for (int w = windows - 1; w >= 0; --w)
+        {
+            for (int i = 0; i < c; ++i)
+            {
+                pointAddVar(false, acc, acc, acc);
+            }
+
+            for (int i = 0; i < bucketCount; ++i)
+            {
+                buckets[i] = null;
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int digit = digits[i][w];
+                if (digit != 0)
+                {
+                    int index = ((digit ^ (digit >> 31)) - (digit >> 31)) - 1;
+                    if (buckets[index] == null)
+                    {
+                        PointExt q = pointCopy(ps[i]);
+                        if (digit < 0)
+                        {
+                            X25519Field.negate(q.x, q.x);
+                            X25519Field.negate(q.t, q.t);
+                        }
+                        buckets[index] = q;
+                    }
+                    else
+                    {
+                        pointAddVar(digit < 0, buckets[index], ps[i], buckets[index]);
+                    }
+                }
+            }
+
+            // sum(j * buckets[j - 1]) using running sums
+            pointSetNeutral(sum);
+            pointSetNeutral(total);
+            for (int i = bucketCount - 1; i >= 0; --i)
+            {
+                if (buckets[i] != null)
+                {
+                    pointAddVar(false, sum, buckets[i], sum);
+                }
+                pointAddVar(false, total, sum, total);
+            }
+
+            pointAddVar(false, acc, total, acc);
+        }
+
+        // clear any small order component
+        for (int i = 0; i < 3; ++i)
+        {
+            pointAddVar(false, acc, acc, acc);
+        }
+
+        int[] x = X25519Field.create();
+        int[] y = X25519Field.create();
+
+        X25519Field.inv(acc.z, y);
+        X25519Field.mul(acc.x, y, x);
+        X25519Field.mul(acc.y, y, y);
+        X25519Field.normalize(x);
+        X25519Field.normalize(y);
+
+        X25519Field.subOne(y);
+
+        return X25519Field.isZeroVar(x) && X25519Field.isZeroVar(y);
+    }
+
+    /**
+     * Recode a scalar into signed radix 2^width digits in [-2^(width-1), 2^(width-1)].
+     */
+    private static int[] getSignedDigits(int[] n, int width, int count)
+    {
+        int[] ws = new int[count];
+
+        final int pow2 = 1 << width;
+        final int mask = pow2 - 1;
+        final int half = pow2 >>> 1;
+
+        int carry = 0;
+        for (int i = 0; i < count; ++i)
+        {
+            int pos = i * width;
+            int word = pos >>> 5, shift = pos & 31;
+
+            int bits = 0;
+            if (word < SCALAR_INTS)
+            {
+                bits = n[word] >>> shift;
+                if (shift + width > 32 && word + 1 < SCALAR_INTS)
+                {
+                    bits |= n[word + 1] << (32 - shift);
+                }
+            }
+
+            int digit = (bits & mask) + carry;
+            carry = (digit > half) ? 1 : 0;
+            ws[i] = digit - (carry << width);
+        }
+
+//        assert carry == 0;
+
+        return ws;
+    }
+
     private static void pointAddVar(boolean negate, PointExt p, PointAccum r)
     {
         int[] A = X25519Field.create();
@@ -1080,6 +1384,46 @@ public abstract class Ed25519
         return implVerify(sig, sigOff, pk, pkOff, ctx, phflag, m, mOff, mLen);
     }
 
+    /**
+     * Verify a pure Ed25519 signature using the cofactored verification equation 8.S.B == 8.R + 8.k.A.
+     * <p>
+     * Note: this is not the check made by {@link #verify(byte[], int, byte[], int, byte[], int, int)}, which
+     * is cofactorless. The two agree for signatures produced by an honest signer, but a signature whose R or
+     * public key has a small order component can be accepted here and rejected there, so a given application
+     * should use one or the other consistently. This is the check {@link #verifyCofactoredBatch} gives the
+     * same answer as.
+     * </p>
+     * @param sig the signature.
+     * @param sigOff offset of the signature in sig.
+     * @param pk the public key.
+     * @param pkOff offset of the public key in pk.
+     * @param m the message.
+     * @param mOff offset of the message in m.
+     * @param mLen length of the message.
+     * @return true if the signature is valid, false otherwise.
+     */
+    public boolean verifyCofactored(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] m, int mOff, int mLen)
+    {
+        return implVerifyCofactored(sig, sigOff, pk, pkOff, m, mOff, mLen);
+    }
+
+    /**
+     * Verify a batch of pure Ed25519 signatures using a single random linear combination of the
+     * cofactored verification equations. If the combined check fails each signature is verified
+     * individually, using {@link #verifyCofactored}, to find the bad ones, so the result for each signature
+     * is the one verifyCofactored() gives it.
+     *
+     * @param sigs the signatures to check.
+     * @param pks the public key for each signature.
+     * @param ms the message for each signature.
+     * @param random source of randomness for the combination coefficients.
+     * @return an array holding the verification result for each signature.
+     */
+    public boolean[] verifyCofactoredBatch(byte[][] sigs, byte[][] pks, byte[][] ms, SecureRandom random)
+    {
+        return implVerifyBatch(sigs, pks, ms, random);
+    }
+
     public boolean verifyPrehash(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] ctx, byte[] ph, int phOff)
     {
         byte phflag = 0x01;
@@ -0,0 +1,194 @@
+package com.distrimind.bcfips.asn1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * Check that a parser mapping a file a window at a time reads the same objects as an ASN1InputStream,
+ * whichever octet of the encodings a window happens to end on.
+ */
+public class ASN1BufferParserWindowTest
+{
+    public static void main(String[] args)
+        throws Exception
+    {
+        // the end-of-contents octets of the second object fall either side of a 13 octet window.
+        byte[] indef = new byte[] { 0x30, (byte)0x80, 0x02, 0x01, 0x05, 0x00, 0x00 };
+        byte[] pair = new byte[indef.length * 2];
+        System.arraycopy(indef, 0, pair, 0, indef.length);
+        System.arraycopy(indef, 0, pair, indef.length, indef.length);
+
+        for (int windowSize = indef.length; windowSize <= pair.length; windowSize++)
+        {
+            checkWindows(pair, windowSize);
+        }
+
+        Random random = new Random(1);
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        int maxObject = 0;
+        for (int i = 0; i != 200; i++)
+        {
+            ByteArrayOutputStream obj = new ByteArrayOutputStream();
+            writeRandom(random, obj, 0);
+            maxObject = Math.max(maxObject, obj.size());
+            bOut.write(obj.toByteArray(), 0, obj.size());
+        }
+        byte[] corpus = bOut.toByteArray();
+
+        for (int windowSize = maxObject; windowSize < maxObject + 64; windowSize++)
+        {
+            checkWindows(corpus, windowSize);
+        }
+        checkWindows(corpus, 4096);
+        checkWindows(corpus, 20000);
+
+        checkClose(corpus);
+
+        System.out.println("ASN1BufferParserWindowTest: OK");
+    }
+
+    private static void checkWindows(byte[] data, int windowSize)
+        throws IOException
+    {
+        File file = writeFile(data);
+        FileChannel channel = FileChannel.open(file.toPath());
+
+        try
+        {
+            ASN1BufferParser parser = new ASN1BufferParser(channel, windowSize, false);
+            ASN1InputStream aIn = new ASN1InputStream(new ByteArrayInputStream(data));
+
+            int count = 0;
+            ASN1Encodable obj;
+            while ((obj = parser.readObject()) != null)
+            {
+                ASN1Primitive expected = aIn.readObject();
+                ASN1Primitive actual = (obj instanceof InMemoryRepresentable)
+                    ? ((InMemoryRepresentable)obj).getLoadedObject() : obj.toASN1Primitive();
+
+                if (!expected.equals(actual))
+                {
+                    throw new IllegalStateException("object " + count + " differs with window of " + windowSize);
+                }
+                count++;
+            }
+
+            if (aIn.readObject() != null)
+            {
+                throw new IllegalStateException("objects missing with window of " + windowSize);
+            }
+        }
+        finally
+        {
+            channel.close();
+            file.delete();
+        }
+    }
+
+    private static void checkClose(byte[] data)
+        throws IOException
+    {
+        File file = writeFile(data);
+        FileChannel channel = FileChannel.open(file.toPath());
+
+        try
+        {
+            ASN1BufferParser parser = new ASN1BufferParser(channel, 4096, true);
+
+            parser.readObject();
+            parser.close();
+
+            if (channel.isOpen())
+            {
+                throw new IllegalStateException("owned channel not closed");
+            }
+        }
+        finally
+        {
+            channel.close();
+            file.delete();
+        }
+    }
+
+    private static File writeFile(byte[] data)
+        throws IOException
+    {
+        File file = File.createTempFile("asn1", ".ber");
+        OutputStream fOut = new FileOutputStream(file);
+
+        try
+        {
+            fOut.write(data);
+        }
+        finally
+        {
+            fOut.close();
+        }
+
+        return file;
+    }
+
+    // a SEQUENCE of INTEGERs, OCTET STRINGs and nested SEQUENCEs, using indefinite lengths at random.
+    private static void writeRandom(Random random, ByteArrayOutputStream out, int depth)
+    {
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        int count = random.nextInt(6);
+
+        for (int i = 0; i != count; i++)
+        {
+            int choice = depth < 4 ? random.nextInt(3) : random.nextInt(2);
+            if (choice == 0)
+            {
+                byte[] value = new byte[1 + random.nextInt(20)];
+                random.nextBytes(value);
+                value[0] = (byte)(value[0] & 0x3f | 0x01);
+                writeDefinite(contents, BERTags.INTEGER, value);
+            }
+            else if (choice == 1)
+            {
+                byte[] value = new byte[random.nextInt(300)];
+                random.nextBytes(value);
+                writeDefinite(contents, BERTags.OCTET_STRING, value);
+            }
+            else
+            {
+                writeRandom(random, contents, depth + 1);
+            }
+        }
+
+        if (random.nextBoolean())
+        {
+            out.write(BERTags.SEQUENCE | BERTags.CONSTRUCTED);
+            out.write(0x80);
+            out.write(contents.toByteArray(), 0, contents.size());
+            out.write(0x00);
+            out.write(0x00);
+        }
+        else
+        {
+            writeDefinite(out, BERTags.SEQUENCE | BERTags.CONSTRUCTED, contents.toByteArray());
+        }
+    }
+
+    private static void writeDefinite(ByteArrayOutputStream out, int tag, byte[] contents)
+    {
+        out.write(tag);
+        if (contents.length < 128)
+        {
+            out.write(contents.length);
+        }
+        else
+        {
+            out.write(0x82);
+            out.write(contents.length >> 8);
+            out.write(contents.length);
+        }
+        out.write(contents, 0, contents.length);
+    }
+}